@@ -8,9 +8,13 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.List;
 
 @SpringBootApplication
 @EnableFeignClients
+@EnableScheduling
 public class NossaLojaVirtualApplication {
 
 	public static void main(String[] args) {
@@ -23,8 +27,11 @@ public class NossaLojaVirtualApplication {
 		User woody = new User("woody@toystory.com");
 
 		return (args) -> {
-			repository.save(buzz);
-			repository.save(woody);
+			for (User user : List.of(buzz, woody)) {
+				if (!repository.existsByEmail(user.getUsername())) {
+					repository.save(user);
+				}
+			}
 		};
 
 	}
@@ -1,5 +1,6 @@
 package br.com.zup.edu.nossalojavirtual;
 
+import br.com.zup.edu.nossalojavirtual.shared.security.CachingJwtDecoder;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -12,6 +13,12 @@ import static org.springframework.security.config.http.SessionCreationPolicy.STA
 @EnableGlobalMethodSecurity(prePostEnabled = true)
 public class ResourceServerConfig extends WebSecurityConfigurerAdapter {
 
+    private final CachingJwtDecoder jwtDecoder;
+
+    ResourceServerConfig(CachingJwtDecoder jwtDecoder) {
+        this.jwtDecoder = jwtDecoder;
+    }
+
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http
@@ -32,17 +39,20 @@ public class ResourceServerConfig extends WebSecurityConfigurerAdapter {
                         .antMatchers(HttpMethod.POST, "/api/categories").hasAuthority("SCOPE_categories:write")
                         .antMatchers(HttpMethod.POST, "/api/users").hasAuthority("SCOPE_users:write")
                         .antMatchers(HttpMethod.POST, "/api/products").hasAuthority("SCOPE_product:write")
+                        .antMatchers(HttpMethod.POST, "/api/products/bulk").hasAuthority("SCOPE_product:write")
                         .antMatchers(HttpMethod.POST, "/api/opinions").hasAuthority("SCOPE_opinion:write")
                         .antMatchers(HttpMethod.POST, "/api/products/**/questions").hasAuthority("SCOPE_questions:write")
                         .antMatchers(HttpMethod.POST, "/api/purchase").hasAuthority("SCOPE_purchase:write")
                         .antMatchers(HttpMethod.GET, "/api/products/**").hasAuthority("SCOPE_product:read")
+                        .antMatchers(HttpMethod.GET, "/api/categories/**/products").hasAuthority("SCOPE_product:read")
                         .antMatchers(HttpMethod.GET, "/actuator/").hasAuthority("SCOPE_actuator:read")
+                        .antMatchers(HttpMethod.POST, "/actuator/productsearchindex").hasAuthority("SCOPE_actuator:write")
                         .antMatchers("/h2-console/**").permitAll()
                     .anyRequest()
                         .authenticated()
                     .and()
                         .oauth2ResourceServer()
-                            .jwt(jwt -> jwt.jwkSetUri("http://localhost:18080/realms/nosa-loja-virtual/protocol/openid-connect/certs"));
+                            .jwt(jwt -> jwt.decoder(jwtDecoder));
 
 
         http.headers().frameOptions().sameOrigin();
@@ -1,32 +1,34 @@
 package br.com.zup.edu.nossalojavirtual.categories;
 
+import br.com.zup.edu.nossalojavirtual.shared.validators.ExistenceFilterListener;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Objects;
 import java.util.StringJoiner;
 
-import static java.util.Objects.isNull;
-import static javax.persistence.GenerationType.IDENTITY;
+import static javax.persistence.FetchType.LAZY;
+import static javax.persistence.GenerationType.SEQUENCE;
 import static org.springframework.util.Assert.hasText;
 import static org.springframework.util.Assert.notNull;
 
 @Table(name = "categories")
 @Entity
+@EntityListeners(ExistenceFilterListener.class)
 public class Category {
 
     @Id
-    @GeneratedValue(strategy = IDENTITY)
+    @GeneratedValue(strategy = SEQUENCE, generator = "categories_sequence")
+    @SequenceGenerator(name = "categories_sequence", sequenceName = "categories_sequence", allocationSize = 50)
     @Column(name = "category_id")
     private Long id;
 
     @NotEmpty
-    @Column(name = "category_name")
+    @Column(name = "category_name", unique = true)
     private String name;
 
-    @ManyToOne
+    @ManyToOne(fetch = LAZY)
     @JoinColumn(name = "super_category_id")
     private Category superCategory;
 
@@ -34,7 +36,7 @@ public class Category {
      * @deprecated frameworks eyes only
      */
     @Deprecated
-    private Category() { }
+    protected Category() { }
 
     /**
      * if this category does not have a super category @see #Category(String name)
@@ -73,24 +75,6 @@ public class Category {
         return superCategory;
     }
 
-    /**
-     *
-     * @return a list of Categories from mother to this category itself
-     */
-    public List<Category> getCategoryHierarchy() {
-        LinkedList<Category> categoriesOrder = new LinkedList<>();
-
-        Category category = this;
-        categoriesOrder.addFirst(category);
-
-        while (!isNull(category.superCategory)) {
-            category = category.superCategory;
-            categoriesOrder.addFirst(category);
-        }
-
-        return categoriesOrder;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,117 @@
+package br.com.zup.edu.nossalojavirtual.categories;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Links a category to itself and to every category above it, with how many levels apart they are.
+ *
+ * Everything below a category is found by its id alone, so reading a whole subtree is a single join
+ * whatever the depth of the tree.
+ */
+@Table(name = "category_closure")
+@Entity
+@IdClass(CategoryClosure.Key.class)
+public class CategoryClosure implements Persistable<CategoryClosure.Key> {
+
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    @Column(name = "depth", nullable = false)
+    private int depth;
+
+    /**
+     * the rows are only ever inserted, so saving them never has to look them up first
+     */
+    @Transient
+    private boolean isNew = true;
+
+    /**
+     * @deprecated frameworks eyes only
+     */
+    @Deprecated
+    protected CategoryClosure() { }
+
+    CategoryClosure(Long ancestorId, Long descendantId, int depth) {
+        this.ancestorId = ancestorId;
+        this.descendantId = descendantId;
+        this.depth = depth;
+    }
+
+    public Long getAncestorId() {
+        return ancestorId;
+    }
+
+    public Long getDescendantId() {
+        return descendantId;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(ancestorId, descendantId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CategoryClosure.class.getSimpleName() + "[", "]")
+                .add("ancestorId=" + ancestorId)
+                .add("descendantId=" + descendantId)
+                .add("depth=" + depth)
+                .toString();
+    }
+
+    public static class Key implements Serializable {
+
+        private Long ancestorId;
+        private Long descendantId;
+
+        /**
+         * @deprecated frameworks eyes only
+         */
+        @Deprecated
+        public Key() { }
+
+        Key(Long ancestorId, Long descendantId) {
+            this.ancestorId = ancestorId;
+            this.descendantId = descendantId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(ancestorId, key.ancestorId) &&
+                    Objects.equals(descendantId, key.descendantId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ancestorId, descendantId);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.zup.edu.nossalojavirtual.categories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CategoryClosureRepository extends JpaRepository<CategoryClosure, CategoryClosure.Key> {
+
+    /**
+     * @return how many categories are linked to themselves, which is every category once the closure is complete
+     */
+    long countByDepth(int depth);
+}
@@ -1,14 +1,21 @@
 package br.com.zup.edu.nossalojavirtual.categories;
 
+import br.com.zup.edu.nossalojavirtual.shared.validators.RegisteredObjects;
 import br.com.zup.edu.nossalojavirtual.shared.validators.UniqueFieldValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.transaction.Transactional;
 import javax.validation.Valid;
 import java.net.URI;
+import java.util.Optional;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -17,19 +24,40 @@ class CategoryController {
     Logger logger = LoggerFactory.getLogger(CategoryController.class);
 
     private final CategoryRepository categoryRepository;
+    private final CategoryTree categoryTree;
+    private final CategorySubtrees categorySubtrees;
+    private final RegisteredObjects registeredObjects;
+    private final KnownCategoryNames knownCategoryNames;
 
-    CategoryController(CategoryRepository categoryRepository) {
+    CategoryController(CategoryRepository categoryRepository,
+                       CategoryTree categoryTree,
+                       CategorySubtrees categorySubtrees,
+                       RegisteredObjects registeredObjects,
+                       KnownCategoryNames knownCategoryNames) {
         this.categoryRepository = categoryRepository;
+        this.categoryTree = categoryTree;
+        this.categorySubtrees = categorySubtrees;
+        this.registeredObjects = registeredObjects;
+        this.knownCategoryNames = knownCategoryNames;
     }
 
     @PostMapping
-    ResponseEntity<?> createCategory(@RequestBody @Valid NewCategoryRequest newCategory) {
+    @Transactional
+    public ResponseEntity<?> createCategory(@RequestBody @Valid NewCategoryRequest newCategory) {
 
         logger.info("Starting category {} registration", newCategory.getName());
 
-        Category category = newCategory.toCategory(categoryRepository::findCategoryById);
+        Category category = newCategory.toCategory(findCategoryById());
 
-        categoryRepository.save(category);
+        try {
+            // the name filter may not know a name registered by another instance yet, the unique constraint does
+            categoryRepository.saveAndFlush(category);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("category {} already exists", newCategory.getName());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "name is already registered");
+        }
+        categoryTree.register(category);
+        categorySubtrees.register(category);
 
         logger.info("category {} successfully registered", newCategory.getName());
 
@@ -43,7 +71,14 @@ class CategoryController {
         binder.addValidators(new UniqueFieldValidator<>("name",
                                                        "category.name.alreadyExists",
                                                         NewCategoryRequest.class,
-                                                        categoryRepository::existsByName),
-                             new SuperCategoryExistsValidator(categoryRepository));
+                                                        knownCategoryNames.guard(categoryRepository::existsByName)),
+                             new SuperCategoryExistsValidator(findCategoryById()));
+    }
+
+    /**
+     * the super category found while the request was validated is not looked up again
+     */
+    private Function<Long, Optional<Category>> findCategoryById() {
+        return registeredObjects.finder(Category.class, categoryRepository::findCategoryById);
     }
 }
@@ -1,8 +1,11 @@
 package br.com.zup.edu.nossalojavirtual.categories;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.repository.Repository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
@@ -14,4 +17,13 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     boolean existsByName(String name);
 
     boolean existsById(Long id);
+
+    /**
+     * @return every category with its super category already loaded
+     */
+    @Query("select c from Category c left join fetch c.superCategory")
+    List<Category> findAllWithSuperCategory();
+
+    @Query("select c.name from Category c order by c.id")
+    Slice<String> findAllNames(Pageable pageable);
 }
@@ -0,0 +1,91 @@
+package br.com.zup.edu.nossalojavirtual.categories;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Keeps the category closure table, which links every category to itself and to every category above it.
+ *
+ * Rows are written when a category is registered, in the same transaction. The paths come from the
+ * {@link CategoryTree}, so no recursive query is ever needed.
+ */
+@Component
+public class CategorySubtrees {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CategorySubtrees.class);
+
+    private final CategoryClosureRepository categoryClosureRepository;
+    private final CategoryRepository categoryRepository;
+    private final CategoryTree categoryTree;
+
+    CategorySubtrees(CategoryClosureRepository categoryClosureRepository,
+                     CategoryRepository categoryRepository,
+                     CategoryTree categoryTree) {
+        this.categoryClosureRepository = categoryClosureRepository;
+        this.categoryRepository = categoryRepository;
+        this.categoryTree = categoryTree;
+    }
+
+    /**
+     * The category joins the category tree only after the commit, so its path is the one of its super category
+     *
+     * @param category a category that has just been registered
+     */
+    void register(Category category) {
+        Category superCategory = category.getSuperCategory();
+        long[] superAncestors = isNull(superCategory) ? new long[0] : categoryTree.ancestorsOf(superCategory.getId());
+
+        long[] ancestors = Arrays.copyOf(superAncestors, superAncestors.length + 1);
+        ancestors[superAncestors.length] = category.getId();
+
+        categoryClosureRepository.saveAll(closureOf(category.getId(), ancestors));
+    }
+
+    /**
+     * Fills the closure of the categories registered before it existed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void rebuildIfIncomplete() {
+        if (categoryClosureRepository.countByDepth(0) != categoryRepository.count()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Replaces the whole closure with the one of the categories in the database
+     *
+     * @return how many rows were written
+     */
+    @Transactional
+    public long rebuild() {
+        categoryTree.refresh();
+        categoryClosureRepository.deleteAllInBatch();
+
+        List<CategoryClosure> closure = new ArrayList<>();
+        categoryRepository.findAll()
+                          .forEach(category -> closure.addAll(closureOf(category.getId(), categoryTree.ancestorsOf(category.getId()))));
+        categoryClosureRepository.saveAll(closure);
+
+        LOG.info("[CATEGORY] [CLOSURE] Category closure rebuilt with {} rows", closure.size());
+        return closure.size();
+    }
+
+    private List<CategoryClosure> closureOf(Long categoryId, long[] ancestors) {
+        List<CategoryClosure> closure = new ArrayList<>(ancestors.length);
+        for (int i = 0; i < ancestors.length; i++) {
+            closure.add(new CategoryClosure(ancestors[i], categoryId, ancestors.length - 1 - i));
+        }
+
+        return closure;
+    }
+}
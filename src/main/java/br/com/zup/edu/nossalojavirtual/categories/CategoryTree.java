@@ -0,0 +1,207 @@
+package br.com.zup.edu.nossalojavirtual.categories;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * In-memory index of the category hierarchy.
+ *
+ * Categories change rarely but are read on every product view, so every category keeps its ancestor path
+ * precomputed and the whole index is replaced, never changed, when a category is registered.
+ * Reads never touch the database.
+ */
+@Component
+public class CategoryTree {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CategoryTree.class);
+
+    private final CategoryRepository categoryRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of());
+
+    CategoryTree(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    /**
+     * Loads every category from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void refresh() {
+        Map<Long, Category> categories = new HashMap<>();
+        categoryRepository.findAllWithSuperCategory()
+                          .forEach(category -> categories.put(category.getId(), category));
+
+        this.snapshot = Snapshot.of(categories.values());
+
+        LOG.info("[CATEGORY] [TREE] Category tree loaded with {} categories", categories.size());
+    }
+
+    /**
+     * A category registered in a transaction is added only after it commits, so a rollback never leaves it in the tree
+     *
+     * @param category a category that has just been registered
+     */
+    public void register(Category category) {
+        requireNonNull(category.getId(), "category must be registered before it is added to the tree");
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(category);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(category);
+            }
+        });
+    }
+
+    private synchronized void add(Category category) {
+        Category superCategory = category.getSuperCategory();
+        if (!isNull(superCategory) && !snapshot.contains(superCategory.getId())) {
+            refresh();
+            return;
+        }
+
+        this.snapshot = snapshot.with(category);
+    }
+
+    /**
+     * @param categoryId the category id
+     * @return the category names from the mother category to the category itself
+     */
+    public List<String> hierarchyNamesOf(Long categoryId) {
+        return List.of(node(categoryId).names);
+    }
+
+    /**
+     * @param categoryId the category id
+     * @return the category name
+     */
+    public String nameOf(Long categoryId) {
+        String[] names = node(categoryId).names;
+        return names[names.length - 1];
+    }
+
+    /**
+     * @param categoryId the category id
+     * @return the category ids from the mother category to the category itself
+     */
+    public long[] ancestorsOf(Long categoryId) {
+        long[] path = node(categoryId).path;
+        return Arrays.copyOf(path, path.length);
+    }
+
+    private Node node(Long categoryId) {
+        return knowing(categoryId).nodes.get(categoryId);
+    }
+
+    /**
+     * Categories registered by other instances are unknown until the tree is loaded again,
+     * which only happens when the unknown id is found in the database
+     *
+     * @throws IllegalArgumentException if the category does not exist
+     */
+    private Snapshot knowing(Long categoryId) {
+        requireNonNull(categoryId, "categoryId must not be null");
+
+        if (!snapshot.contains(categoryId) && categoryRepository.existsById(categoryId)) {
+            refresh();
+        }
+
+        Snapshot current = this.snapshot;
+        if (!current.contains(categoryId)) {
+            throw new IllegalArgumentException(String.format("Category %s is not registered", categoryId));
+        }
+
+        return current;
+    }
+
+    private static final class Node {
+
+        /**
+         * ancestor ids from the mother category to this category
+         */
+        private final long[] path;
+
+        /**
+         * ancestor names from the mother category to this category
+         */
+        private final String[] names;
+
+        private Node(long[] path, String[] names) {
+            this.path = path;
+            this.names = names;
+        }
+
+        private static Node root(Category category) {
+            return new Node(new long[] { category.getId() }, new String[] { category.getName() });
+        }
+
+        private Node child(Category category) {
+            long[] childPath = Arrays.copyOf(path, path.length + 1);
+            childPath[path.length] = category.getId();
+
+            String[] childNames = Arrays.copyOf(names, names.length + 1);
+            childNames[names.length] = category.getName();
+
+            return new Node(childPath, childNames);
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final Map<Long, Node> nodes;
+
+        private Snapshot(Map<Long, Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        private static Snapshot of(Collection<Category> categories) {
+            Map<Long, Node> nodes = new HashMap<>();
+            categories.forEach(category -> nodeOf(category, nodes));
+
+            return new Snapshot(nodes);
+        }
+
+        private static Node nodeOf(Category category, Map<Long, Node> nodes) {
+            Node node = nodes.get(category.getId());
+            if (!isNull(node)) {
+                return node;
+            }
+
+            Category superCategory = category.getSuperCategory();
+            node = isNull(superCategory) ? Node.root(category) : nodeOf(superCategory, nodes).child(category);
+            nodes.put(category.getId(), node);
+
+            return node;
+        }
+
+        private Snapshot with(Category category) {
+            Map<Long, Node> nodes = new HashMap<>(this.nodes);
+            nodeOf(category, nodes);
+
+            return new Snapshot(nodes);
+        }
+
+        private boolean contains(Long categoryId) {
+            return nodes.containsKey(categoryId);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package br.com.zup.edu.nossalojavirtual.categories;
+
+import br.com.zup.edu.nossalojavirtual.shared.validators.ExistenceFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+/**
+ * The names of the registered categories, a new category with a free name is registered without checking it by a query
+ */
+@Component
+class KnownCategoryNames extends ExistenceFilter<Category, String> {
+
+    private final CategoryRepository categoryRepository;
+
+    KnownCategoryNames(CategoryRepository categoryRepository,
+                       MeterRegistry meterRegistry,
+                       @Value("${validators.existence-filter.expected-insertions:1000000}") long expectedInsertions,
+                       @Value("${validators.existence-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        super("categoryNames", Category.class, meterRegistry, expectedInsertions, falsePositiveProbability);
+        this.categoryRepository = categoryRepository;
+    }
+
+    @Override
+    protected String keyOf(Category category) {
+        return category.getName();
+    }
+
+    @Override
+    protected Slice<String> registeredKeys(Pageable pageable) {
+        return categoryRepository.findAllNames(pageable);
+    }
+}
@@ -6,15 +6,16 @@ import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 
 import java.util.Optional;
+import java.util.function.Function;
 
 class SuperCategoryExistsValidator implements Validator {
 
     Logger logger = LoggerFactory.getLogger(SuperCategoryExistsValidator.class);
 
-    private final CategoryRepository categoryRepository;
+    private final Function<Long, Optional<Category>> findCategoryById;
 
-    SuperCategoryExistsValidator(CategoryRepository categoryRepository) {
-        this.categoryRepository = categoryRepository;
+    SuperCategoryExistsValidator(Function<Long, Optional<Category>> findCategoryById) {
+        this.findCategoryById = findCategoryById;
     }
 
     @Override
@@ -30,7 +31,7 @@ class SuperCategoryExistsValidator implements Validator {
         if (superCategory.isPresent()) {
             Long superCategoryId = superCategory.get();
 
-            if (!categoryRepository.existsById(superCategoryId)) {
+            if (findCategoryById.apply(superCategoryId).isEmpty()) {
                 logger.warn("The category informed does not exists");
                 errors.rejectValue("superCategory", "category.superCategory", "The super category does not exists");
             }
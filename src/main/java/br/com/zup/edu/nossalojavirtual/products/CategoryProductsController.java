@@ -0,0 +1,81 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+import static org.springframework.data.domain.Sort.Direction.ASC;
+import static org.springframework.data.domain.Sort.Direction.DESC;
+import static org.springframework.http.ResponseEntity.notFound;
+import static org.springframework.http.ResponseEntity.ok;
+
+@RestController
+@RequestMapping("/api/categories/{id}/products")
+class CategoryProductsController {
+
+    Logger logger = LoggerFactory.getLogger(CategoryProductsController.class);
+
+    /**
+     * the product id breaks ties, so a product never shows up in two pages
+     */
+    private static final Map<String, Sort> SORTS = Map.of(
+            "newest", Sort.by(DESC, "createdAt").and(Sort.by(ASC, "id")),
+            "price", Sort.by(ASC, "price").and(Sort.by(ASC, "id")),
+            "-price", Sort.by(DESC, "price").and(Sort.by(ASC, "id")));
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final int maxPageSize;
+
+    CategoryProductsController(ProductRepository productRepository,
+                               CategoryRepository categoryRepository,
+                               @Value("${products.category-products.max-page-size:50}") int maxPageSize) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * lists the products of the category and of every category below it
+     *
+     * @param sort newest, price (lowest first) or -price (highest first)
+     * @param page the page number, starting at zero
+     * @param size how many products per page
+     */
+    @GetMapping
+    ResponseEntity<?> list(@PathVariable("id") Long id,
+                           @RequestParam(value = "sort", defaultValue = "newest") String sort,
+                           @RequestParam(value = "page", defaultValue = "0") int page,
+                           @RequestParam(value = "size", defaultValue = "20") int size) {
+
+        if (!SORTS.containsKey(sort)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be one of " + SORTS.keySet());
+        }
+
+        if (page < 0 || size < 1 || size > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must not be negative and size must be between 1 and " + maxPageSize);
+        }
+
+        if (!categoryRepository.existsById(id)) {
+            logger.info("category {} does not exist", id);
+            return notFound().build();
+        }
+
+        var products = productRepository.findByCategorySubtree(id, PageRequest.of(page, size, SORTS.get(sort)));
+        return ok(new ProductSummariesResponse(products));
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+/**
+ * A page of a list read with keyset pagination.
+ *
+ * The cursor points to the last item of the page, the next page starts right after it
+ */
+class CursorPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    private CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @param rows up to one row more than the page size, the extra row tells there is a next page
+     * @param size the page size
+     * @param cursorOf the cursor pointing to a row
+     * @param toItem maps a row to the page item
+     */
+    static <R, T> CursorPage<T> of(List<R> rows, int size, Function<R, String> cursorOf, Function<R, T> toItem) {
+        List<R> page = rows.size() > size ? rows.subList(0, size) : rows;
+        String nextCursor = rows.size() > size ? cursorOf.apply(page.get(page.size() - 1)) : null;
+
+        return new CursorPage<>(page.stream().map(toItem).collect(toUnmodifiableList()), nextCursor);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the cursor of the next page, null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,56 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The position of a row in a list sorted by creation time and id, encoded as an opaque url safe string
+ */
+final class KeysetCursor {
+
+    private static final String SEPARATOR = "_";
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    private KeysetCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    static String encode(LocalDateTime createdAt, Long id) {
+        return encode(createdAt + SEPARATOR + id);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not created by {@link #encode}
+     */
+    static KeysetCursor decode(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), UTF_8).split(SEPARATOR);
+
+            if (position.length == 2) {
+                return new KeysetCursor(LocalDateTime.parse(position[0]), Long.valueOf(position[1]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid cursor " + cursor, e);
+        }
+
+        throw new IllegalArgumentException("invalid cursor " + cursor);
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(UTF_8));
+    }
+
+    LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,37 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.shared.validators.ExistenceFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * The ids of the registered products, a product view or purchase of an unknown product is answered without a query
+ */
+@Component
+public class KnownProductIds extends ExistenceFilter<Product, UUID> {
+
+    private final ProductRepository productRepository;
+
+    KnownProductIds(ProductRepository productRepository,
+                    MeterRegistry meterRegistry,
+                    @Value("${validators.existence-filter.expected-insertions:1000000}") long expectedInsertions,
+                    @Value("${validators.existence-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        super("productIds", Product.class, meterRegistry, expectedInsertions, falsePositiveProbability);
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    protected UUID keyOf(Product product) {
+        return product.getId();
+    }
+
+    @Override
+    protected Slice<UUID> registeredKeys(Pageable pageable) {
+        return productRepository.findAllIds(pageable);
+    }
+}
@@ -2,36 +2,115 @@ package br.com.zup.edu.nossalojavirtual.products;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
 
-import static java.time.LocalDateTime.now;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static java.util.stream.Collectors.toList;
 
+/**
+ * Stores the product photos in a local directory.
+ *
+ * Photos are decoded while they are written, so no decoded copy of a photo is kept in memory,
+ * and the photos of a product are stored in parallel on a bounded pool.
+ * Each file is named by the SHA-256 of its content, so identical photos are stored once.
+ */
 @Component
-class LocalPhotoUploader implements PhotoUploader {
+class LocalPhotoUploader implements PhotoUploader, DisposableBean {
 
     private static final Logger LOG = LoggerFactory.getLogger(LocalPhotoUploader.class);
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path storageDirectory;
+    private final String baseUrl;
+    private final ThreadPoolTaskExecutor executor;
+
     /**
-     * Url is composed by [userID]/[productId][timestamp]
+     * @param storageDirectory where the photos are stored
+     * @param baseUrl the url the stored photos are served from
+     * @param parallelism how many photos are stored at the same time
      */
-    private static final String PRODUCTS_BUCKET_URL = "https://s3.nosso-mercado-livre.amazon/products/%s/%s/%s";
+    LocalPhotoUploader(@Value("${products.photos.storage-directory:${java.io.tmpdir}/nossa-loja-virtual/photos}") Path storageDirectory,
+                       @Value("${products.photos.base-url:https://s3.nosso-mercado-livre.amazon/products}") String baseUrl,
+                       @Value("${products.photos.parallelism:4}") int parallelism) throws IOException {
+
+        this.storageDirectory = Files.createDirectories(storageDirectory);
+        this.baseUrl = baseUrl;
+
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(parallelism * 16);
+        executor.setThreadNamePrefix("photo-upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+    }
 
     /**
      *
      * @param photos photos in base64 to upload
      * @param preProduct a previous state of a product
-     * @return a list of {@link Photo} with images url
+     * @return a list of {@link Photo} with images url, in the same order of the photos
      */
     @Override
     public List<Photo> upload(List<String> photos, PreProduct preProduct) {
 
-        return photos.stream()
-                     .map(photo -> storagePhoto(photo, preProduct))
-                     .collect(toList());
+        List<CompletableFuture<Photo>> uploads = photos.stream()
+                                                       .map(photo -> CompletableFuture.supplyAsync(() -> storagePhoto(photo, preProduct), executor))
+                                                       .collect(toList());
 
+        try {
+            return uploads.stream()
+                          .map(CompletableFuture::join)
+                          .collect(toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(List<Photo> photos) {
+        String prefix = baseUrl + "/";
+        for (Photo photo : photos) {
+            if (!photo.getUrl().startsWith(prefix)) {
+                continue;
+            }
+
+            Path file = storageDirectory.resolve(photo.getUrl().substring(prefix.length()));
+            try {
+                Files.deleteIfExists(file);
+                LOG.info("[PRODUCT] [PHOTO] Deleted photo {}", photo.getUrl());
+            } catch (IOException e) {
+                LOG.warn("[PRODUCT] [PHOTO] Photo {} could not be deleted: {}", file, e.getMessage());
+            }
+        }
     }
 
     /**
@@ -41,11 +120,108 @@ class LocalPhotoUploader implements PhotoUploader {
      * @return a {@link Photo} with its url
      */
     private Photo storagePhoto(String photo, PreProduct preProduct) {
-        String photoName = now().toString();
-        String url = String.format(PRODUCTS_BUCKET_URL, preProduct.getUser().getId(), preProduct.getId(), photoName);
+        try {
+            Path temporary = Files.createTempFile(storageDirectory, "upload-", ".tmp");
+
+            try {
+                String photoName = write(photo, temporary);
+                store(temporary, storageDirectory.resolve(photoName));
+
+                String url = baseUrl + "/" + photoName;
+                LOG.info("[PRODUCT] [PHOTO] Uploaded photo of product {} to: {}", preProduct.getId(), url);
+
+                return new Photo(url);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("photo could not be uploaded", e);
+        }
+    }
+
+    /**
+     * @return the SHA-256 of the decoded photo, in hexadecimal
+     */
+    private String write(String photo, Path file) throws IOException {
+        MessageDigest digest = sha256();
+        InputStream decoded = new DigestInputStream(Base64.getMimeDecoder().wrap(new AsciiInputStream(photo)), digest);
+
+        try (ReadableByteChannel source = Channels.newChannel(decoded);
+             FileChannel target = FileChannel.open(file, WRITE)) {
+
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
+
+    /**
+     * a photo already stored has the same content, so the new copy is discarded
+     */
+    private void store(Path temporary, Path photo) throws IOException {
+        if (Files.exists(photo)) {
+            return;
+        }
+
+        try {
+            Files.move(temporary, photo, ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            LOG.debug("[PRODUCT] [PHOTO] Photo {} stored concurrently", photo.getFileName());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * reads the base64 characters straight from the string, without copying them to a byte array
+     */
+    private static class AsciiInputStream extends InputStream {
+
+        private final String characters;
+        private int position;
+
+        private AsciiInputStream(String characters) {
+            this.characters = characters;
+        }
+
+        @Override
+        public int read() {
+            return position < characters.length() ? characters.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= characters.length()) {
+                return -1;
+            }
 
-        LOG.info("[PRODUCT] [PHOTO] Uploaded product photo to: {}", url);
+            int read = Math.min(length, characters.length() - position);
+            for (int i = 0; i < read; i++) {
+                bytes[offset + i] = (byte) characters.charAt(position++);
+            }
 
-        return new Photo(url);
+            return read;
+        }
     }
 }
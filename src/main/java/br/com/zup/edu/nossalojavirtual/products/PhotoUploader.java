@@ -5,4 +5,11 @@ import java.util.List;
 public interface PhotoUploader {
 
     List<Photo> upload(List<String> photos, PreProduct preProduct);
+
+    /**
+     * identical photos may be stored once for several products, so only photos no product refers to are deleted
+     *
+     * @param photos photos uploaded for products that could not be saved
+     */
+    void delete(List<Photo> photos);
 }
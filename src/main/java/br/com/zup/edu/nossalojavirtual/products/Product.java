@@ -1,9 +1,9 @@
 package br.com.zup.edu.nossalojavirtual.products;
 
 import br.com.zup.edu.nossalojavirtual.categories.Category;
-import br.com.zup.edu.nossalojavirtual.purchase.NewPurchaseRequest;
-import br.com.zup.edu.nossalojavirtual.purchase.Purchase;
+import br.com.zup.edu.nossalojavirtual.shared.validators.ExistenceFilterListener;
 import br.com.zup.edu.nossalojavirtual.users.User;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.validator.constraints.Length;
 
 import javax.persistence.*;
@@ -14,11 +14,13 @@ import java.util.*;
 
 import static java.time.LocalDateTime.now;
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.averagingDouble;
 import static org.springframework.util.Assert.notEmpty;
 
-@Table(name = "products")
+@Table(name = "products",
+       indexes = @Index(name = "idx_products_user_created_at", columnList = "user_id, product_created_at"))
 @Entity
+@EntityListeners(ExistenceFilterListener.class)
+@DynamicUpdate
 public
 class Product {
 
@@ -38,13 +40,14 @@ class Product {
     @Column(name = "product_stock_quantity")
     private Integer stockQuantity;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection
     @CollectionTable(name = "product_photos",
             joinColumns = @JoinColumn(name = "product_id"))
+    @OrderColumn(name = "photo_position")
     @Size(min = 1)
     private List<Photo> photos;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection
     @CollectionTable(name = "product_characteristcs",
             joinColumns = @JoinColumn(name = "product_id"))
     @Size(min = 3)
@@ -65,7 +68,7 @@ class Product {
     @NotNull
     private User user;
 
-    @OneToMany(mappedBy = "product", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "product")
     private List<ProductOpinion> opinions;
 
     @OneToMany(mappedBy = "product")
@@ -74,14 +77,20 @@ class Product {
     @Column(name = "product_created_at")
     private LocalDateTime createdAt = now();
 
+    @Embedded
+    private RatingSummary ratingSummary = new RatingSummary();
+
+    /**
+     * null until the product is persisted, so saving a new product does not merge it
+     */
     @Version
-    private int version;
+    private Integer version;
 
     /**
      * @deprecated frameworks eyes only
      */
     @Deprecated
-    private Product() { }
+    protected Product() { }
 
     Product(@NotNull PreProduct preProduct,
             @Size(min = 1) List<Photo> photos,
@@ -145,34 +154,24 @@ class Product {
         return questions;
     }
 
-    /**
-     *
-     * @return a list of categories from category mother to product's category
-     */
-    public List<Category> getCategoriesHierarchy() {
-        return category.getCategoryHierarchy();
-    }
-
     public String sellerEmail() {
         return user.getUsername();
     }
 
-    public Set<Product> sellerOtherProducts() {
-        Set<Product> products = new HashSet<>(user.getProducts());
-        products.remove(this);
-
-        return products;
-    }
-
     public User getUser() {
         return user;
     }
 
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
     public BigDecimal rating() {
-        double rating = opinions.stream()
-                .collect(averagingDouble(ProductOpinion::getRating));
+        return ratingSummary.average();
+    }
 
-        return BigDecimal.valueOf(rating);
+    public RatingSummary getRatingSummary() {
+        return ratingSummary;
     }
 
     private void atLeastThree(Set<Characteristic> characteristics, String msg) {
@@ -193,24 +192,6 @@ class Product {
         }
     }
 
-    /**
-     * changes the product {@link #stockQuantity}
-     *
-     * @param newPurchase a new Purchase (this parameter is highly coupled, but if needed an interface can be created to decouple)
-     * @param buyer a buyer
-     *
-     * @return An {@link Optional< Purchase >} with a new {@link Purchase} if stock quantity is valid
-     */
-    public Optional<Purchase> reserveQuantityFor(NewPurchaseRequest newPurchase, User buyer) {
-        if (stockQuantity < newPurchase.getQuantity()) {
-            return Optional.empty();
-        }
-
-        stockQuantity -= newPurchase.getQuantity();
-
-        return Optional.of(newPurchase.toPurchase(buyer, this));
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
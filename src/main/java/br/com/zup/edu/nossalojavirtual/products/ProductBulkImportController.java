@@ -0,0 +1,59 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.users.User;
+import br.com.zup.edu.nossalojavirtual.users.AuthenticatedUserResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+@RestController
+@RequestMapping("/api/products/bulk")
+class ProductBulkImportController {
+
+    Logger logger = LoggerFactory.getLogger(ProductBulkImportController.class);
+
+    private final ProductBulkImporter productBulkImporter;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
+
+    ProductBulkImportController(ProductBulkImporter productBulkImporter,
+                                AuthenticatedUserResolver authenticatedUserResolver) {
+        this.productBulkImporter = productBulkImporter;
+        this.authenticatedUserResolver = authenticatedUserResolver;
+    }
+
+    /**
+     * the body is not bound, it is read while the products are imported and the results are written as they are saved
+     */
+    @PostMapping(consumes = { APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE })
+    void importProducts(HttpServletRequest request,
+                        HttpServletResponse response,
+                        @AuthenticationPrincipal Jwt jwtUser) throws IOException {
+
+        String userEmail = jwtUser.getClaim("email");
+
+        User user = authenticatedUserResolver.resolveUser(jwtUser)
+                .orElseThrow(() -> {
+                    logger.warn("user {} not registered", userEmail);
+                    return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "usuário não registrado");
+                });
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+
+        productBulkImporter.importProducts(request.getInputStream(), user, response.getOutputStream());
+    }
+}
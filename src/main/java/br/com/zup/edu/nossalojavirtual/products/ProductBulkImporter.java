@@ -0,0 +1,274 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.categories.Category;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import br.com.zup.edu.nossalojavirtual.users.User;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Imports products from a JSON array or from newline delimited JSON.
+ *
+ * The payload is read one product at a time and the products are saved in chunks, each one in its own transaction,
+ * so only a chunk of products is ever kept in memory, whatever the payload size.
+ * The result of every product is written as a line of JSON as soon as its chunk is done.
+ * A product that does not match {@link NewProductRequest} is reported as invalid, only a malformed payload ends the import.
+ * The photos of a product that can not be saved are deleted, unless a saved product has the same photo.
+ */
+@Component
+class ProductBulkImporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductBulkImporter.class);
+
+    private static final byte[] LINE_SEPARATOR = { '\n' };
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final PhotoUploader photoUploader;
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final ProductDetailsCache productDetailsCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    /**
+     * @param chunkSize how many products are saved in each transaction
+     */
+    ProductBulkImporter(ObjectMapper objectMapper,
+                        Validator validator,
+                        PhotoUploader photoUploader,
+                        CategoryRepository categoryRepository,
+                        ProductRepository productRepository,
+                        ProductDetailsCache productDetailsCache,
+                        ProductSearchIndex productSearchIndex,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${products.bulk-import.chunk-size:500}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.photoUploader = photoUploader;
+        this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+        this.productDetailsCache = productDetailsCache;
+        this.productSearchIndex = productSearchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param payload a JSON array of {@link NewProductRequest} or one {@link NewProductRequest} per line
+     * @param seller the products owner
+     * @param results where a {@link ProductImportResult} per product is written, one per line
+     */
+    void importProducts(InputStream payload, User seller, OutputStream results) throws IOException {
+        Map<Long, Optional<Category>> categories = new HashMap<>();
+        Chunk chunk = new Chunk();
+        int index = 0;
+        int created = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(payload)) {
+            JsonToken token = parser.nextToken();
+            if (token == START_ARRAY) {
+                token = parser.nextToken();
+            }
+
+            while (token == START_OBJECT) {
+                ProductImportResult invalid = read(parser, index, categories, seller, chunk);
+                if (invalid != null) {
+                    write(invalid, results);
+                }
+
+                if (chunk.size() == chunkSize) {
+                    created += save(chunk, results);
+                    chunk = new Chunk();
+                }
+
+                index++;
+                token = parser.nextToken();
+            }
+
+            if (token != null && token != END_ARRAY) {
+                write(ProductImportResult.failed(index, "expected a product but found " + token), results);
+            }
+        } catch (JsonProcessingException e) {
+            write(ProductImportResult.failed(index, "malformed payload: " + e.getOriginalMessage()), results);
+        }
+
+        created += save(chunk, results);
+        results.flush();
+
+        if (created > 0) {
+            // the new products are listed among the other products of the same seller
+            productDetailsCache.evict(productRepository.findIdsByUser(seller));
+        }
+
+        LOG.info("[PRODUCT] [IMPORT] {} of {} products imported for seller {}", created, index, seller.getId());
+    }
+
+    /**
+     * @return the result of the product if it can not be imported, null if it was added to the chunk
+     */
+    private ProductImportResult read(JsonParser parser,
+                                     int index,
+                                     Map<Long, Optional<Category>> categories,
+                                     User seller,
+                                     Chunk chunk) throws IOException {
+
+        JsonNode item = objectMapper.readTree(parser);
+
+        NewProductRequest newProduct;
+        try {
+            newProduct = objectMapper.treeToValue(item, NewProductRequest.class);
+        } catch (JsonMappingException e) {
+            return ProductImportResult.invalid(index, List.of(path(e) + ": " + e.getOriginalMessage()));
+        }
+
+        Set<ConstraintViolation<NewProductRequest>> violations = validator.validate(newProduct);
+        if (!violations.isEmpty()) {
+            List<String> errors = violations.stream()
+                                            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                                            .sorted()
+                                            .collect(toList());
+            return ProductImportResult.invalid(index, errors);
+        }
+
+        Long categoryId = newProduct.getCategoryId();
+        if (categoryId == null || categories.computeIfAbsent(categoryId, categoryRepository::findCategoryById).isEmpty()) {
+            return ProductImportResult.invalid(index, List.of("categoryId: category is not registered"));
+        }
+
+        try {
+            chunk.add(index, newProduct.toProduct(photoUploader, categories::get, seller));
+        } catch (RuntimeException e) {
+            return ProductImportResult.failed(index, e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * when the chunk can not be saved at once, its products are saved one by one so a single product does not fail the others
+     *
+     * @return how many products were saved
+     */
+    private int save(Chunk chunk, OutputStream results) throws IOException {
+        if (chunk.size() == 0) {
+            return 0;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> productRepository.saveAll(chunk.products));
+            productSearchIndex.index(chunk.products);
+
+            for (int i = 0; i < chunk.size(); i++) {
+                write(ProductImportResult.created(chunk.indexes.get(i), chunk.products.get(i).getId()), results);
+            }
+            results.flush();
+
+            return chunk.size();
+        } catch (RuntimeException e) {
+            LOG.warn("[PRODUCT] [IMPORT] Chunk of {} products failed, saving them one by one: {}", chunk.size(), e.getMessage());
+        }
+
+        int saved = 0;
+        List<Product> rejected = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Product product = chunk.products.get(i);
+            int index = chunk.indexes.get(i);
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> productRepository.save(product));
+                productSearchIndex.index(List.of(product));
+                write(ProductImportResult.created(index, product.getId()), results);
+                saved++;
+            } catch (RuntimeException e) {
+                write(ProductImportResult.failed(index, e.getMessage()), results);
+                rejected.add(product);
+            }
+        }
+        results.flush();
+
+        deletePhotos(rejected);
+        return saved;
+    }
+
+    /**
+     * the photos were uploaded when the products were read, the ones no saved product has would be left behind
+     */
+    private void deletePhotos(List<Product> rejected) {
+        if (rejected.isEmpty()) {
+            return;
+        }
+
+        List<Photo> photos = rejected.stream()
+                                     .flatMap(product -> product.getPhotos().stream())
+                                     .collect(toList());
+        Set<String> kept = productRepository.findPhotoUrlsIn(photos.stream().map(Photo::getUrl).collect(toSet()));
+
+        photoUploader.delete(photos.stream()
+                                   .filter(photo -> !kept.contains(photo.getUrl()))
+                                   .collect(toList()));
+    }
+
+    /**
+     * @return the path of the property that could not be read, as the validation errors report it
+     */
+    private static String path(JsonMappingException e) {
+        return e.getPath()
+                .stream()
+                .map(reference -> reference.getFieldName() != null ? reference.getFieldName() : "[" + reference.getIndex() + "]")
+                .collect(joining("."));
+    }
+
+    private void write(ProductImportResult result, OutputStream results) throws IOException {
+        results.write(objectMapper.writeValueAsBytes(result));
+        results.write(LINE_SEPARATOR);
+    }
+
+    /**
+     * the products waiting to be saved and their position in the payload
+     */
+    private static class Chunk {
+
+        private final List<Integer> indexes = new ArrayList<>();
+        private final List<Product> products = new ArrayList<>();
+
+        private void add(int index, Product product) {
+            indexes.add(index);
+            products.add(product);
+        }
+
+        private int size() {
+            return products.size();
+        }
+    }
+}
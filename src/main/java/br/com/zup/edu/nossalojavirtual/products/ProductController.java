@@ -1,9 +1,11 @@
 package br.com.zup.edu.nossalojavirtual.products;
 
 import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import br.com.zup.edu.nossalojavirtual.categories.Category;
 import br.com.zup.edu.nossalojavirtual.shared.validators.ObjectIsRegisteredValidator;
+import br.com.zup.edu.nossalojavirtual.shared.validators.RegisteredObjects;
 import br.com.zup.edu.nossalojavirtual.users.User;
-import br.com.zup.edu.nossalojavirtual.users.UserRepository;
+import br.com.zup.edu.nossalojavirtual.users.AuthenticatedUserResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -17,6 +19,9 @@ import org.springframework.web.server.ResponseStatusException;
 import javax.transaction.Transactional;
 import javax.validation.Valid;
 import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 
 import static org.springframework.http.ResponseEntity.created;
 
@@ -29,16 +34,25 @@ class ProductController {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final PhotoUploader photoUploader;
-    private final UserRepository userRepository;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
+    private final ProductDetailsCache productDetailsCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final RegisteredObjects registeredObjects;
 
     ProductController(ProductRepository productRepository,
                       CategoryRepository categoryRepository,
                       PhotoUploader photoUploader,
-                      UserRepository userRepository) {
+                      AuthenticatedUserResolver authenticatedUserResolver,
+                      ProductDetailsCache productDetailsCache,
+                      ProductSearchIndex productSearchIndex,
+                      RegisteredObjects registeredObjects) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.photoUploader = photoUploader;
-        this.userRepository = userRepository;
+        this.authenticatedUserResolver = authenticatedUserResolver;
+        this.productDetailsCache = productDetailsCache;
+        this.productSearchIndex = productSearchIndex;
+        this.registeredObjects = registeredObjects;
     }
 
     @PostMapping
@@ -51,14 +65,18 @@ class ProductController {
 
         String userEmail = jwtUser.getClaim("email");
 
-        User user = userRepository.findByEmail(userEmail)
+        User user = authenticatedUserResolver.resolveUser(jwtUser)
                 .orElseThrow(() -> {
                     logger.warn("user {} not registered", userEmail);
                     return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "usuário não registrado");
                 });
 
-        Product product = newProduct.toProduct(photoUploader, categoryRepository::findCategoryById, user);
+        Product product = newProduct.toProduct(photoUploader, findCategoryById(), user);
         productRepository.save(product);
+        productSearchIndex.index(List.of(product));
+
+        // the new product is listed among the other products of the same seller
+        productDetailsCache.evict(productRepository.findIdsByUser(user));
 
         logger.info("product {} successfully registered", newProduct.getName());
 
@@ -73,6 +91,13 @@ class ProductController {
                 new ObjectIsRegisteredValidator<>("categoryId",
                         "category.id.dontExist",
                         NewProductRequest.class,
-                        categoryRepository::existsById));
+                        findCategoryById().andThen(Optional::isPresent)));
+    }
+
+    /**
+     * the category found while the request was validated is not looked up again
+     */
+    private Function<Long, Optional<Category>> findCategoryById() {
+        return registeredObjects.finder(Category.class, categoryRepository::findCategoryById);
     }
 }
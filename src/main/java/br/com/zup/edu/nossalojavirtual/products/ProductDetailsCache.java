@@ -0,0 +1,92 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of the assembled {@link ProductDetailsResponse}, keyed by product id.
+ *
+ * Hit, miss and eviction metrics are published as <code>cache.*</code> meters with the tag <code>cache=productDetails</code>
+ */
+@Component
+public class ProductDetailsCache {
+
+    private final Cache<UUID, ProductDetailsResponse> cache;
+
+    /**
+     * @param meterRegistry where the cache metrics are published
+     * @param maximumSize the maximum number of product details kept
+     * @param timeToLive how long a product details is kept after it was loaded
+     */
+    ProductDetailsCache(MeterRegistry meterRegistry,
+                        @Value("${products.details-cache.maximum-size:10000}") long maximumSize,
+                        @Value("${products.details-cache.time-to-live:5m}") Duration timeToLive) {
+
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maximumSize)
+                             .expireAfterWrite(timeToLive)
+                             .recordStats()
+                             .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productDetails");
+    }
+
+    /**
+     * @param id the product id
+     * @param loader loads the product details when they are not cached
+     * @return the product details, if the product exists
+     */
+    Optional<ProductDetailsResponse> get(UUID id, Function<UUID, Optional<ProductDetailsResponse>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * @param id the product whose details changed
+     */
+    public void evict(UUID id) {
+        evictNowAndAfterCommit(() -> cache.invalidate(id));
+    }
+
+    /**
+     * @param ids the products whose details changed
+     */
+    public void evict(Collection<UUID> ids) {
+        evictNowAndAfterCommit(() -> cache.invalidateAll(ids));
+    }
+
+    /**
+     * every product details changed
+     */
+    public void evictAll() {
+        evictNowAndAfterCommit(cache::invalidateAll);
+    }
+
+    /**
+     * Evicting only now would let a concurrent read cache the state before the commit again,
+     * so when there is a transaction running the eviction is repeated after it commits
+     */
+    private void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
@@ -2,11 +2,16 @@ package br.com.zup.edu.nossalojavirtual.products;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.Optional;
@@ -21,27 +26,87 @@ class ProductDetailsController {
 
     Logger logger = LoggerFactory.getLogger(ProductDetailsController.class);
 
+    private final ProductDetailsReader productDetailsReader;
+    private final ProductDetailsCache productDetailsCache;
+    private final ProductFeedbackReader productFeedbackReader;
     private final ProductRepository productRepository;
+    private final KnownProductIds knownProductIds;
 
-    ProductDetailsController(ProductRepository productRepository) {
+    private final int maxSellerProductsPageSize;
+
+    ProductDetailsController(ProductDetailsReader productDetailsReader,
+                             ProductDetailsCache productDetailsCache,
+                             ProductFeedbackReader productFeedbackReader,
+                             ProductRepository productRepository,
+                             KnownProductIds knownProductIds,
+                             @Value("${products.seller-products.max-page-size:50}") int maxSellerProductsPageSize) {
+        this.productDetailsReader = productDetailsReader;
+        this.productDetailsCache = productDetailsCache;
+        this.productFeedbackReader = productFeedbackReader;
         this.productRepository = productRepository;
+        this.knownProductIds = knownProductIds;
+        this.maxSellerProductsPageSize = maxSellerProductsPageSize;
     }
 
     @GetMapping
     ResponseEntity<?> get(@PathVariable("id") UUID id, UriComponentsBuilder uriComponentsBuilder) {
 
-        logger.info("Get product {} details", id);
+        logger.debug("Get product {} details", id);
 
-        Optional<Product> possibleProduct = productRepository.findById(id);
-        if (possibleProduct.isEmpty()) {
+        Optional<ProductDetailsResponse> possibleDetails = productDetailsCache.get(id,
+                knownProductIds.guardFinder(productDetailsReader::read));
+        if (possibleDetails.isEmpty()) {
             logger.info("product {} does not exist", id);
             return notFound().build();
         }
 
-        logger.info("Search of product details {} successful", id);
+        logger.debug("Search of product details {} successful", id);
+
+        return ok(possibleDetails.get().withSellersDetails(uriComponentsBuilder));
 
-        return ok(new ProductDetailsResponse(possibleProduct.get(), uriComponentsBuilder));
+    }
 
+    /**
+     * @param cursor the <code>nextCursor</code> of the previous page, absent for the first page
+     * @param size how many opinions per page
+     */
+    @GetMapping("/opinions")
+    ResponseEntity<?> opinions(@PathVariable("id") UUID id,
+                               @RequestParam(value = "cursor", required = false) String cursor,
+                               @RequestParam(value = "size", required = false) Integer size) {
+
+        if (!knownProductIds.exists(id, productRepository::existsById)) {
+            logger.info("product {} does not exist", id);
+            return notFound().build();
+        }
+
+        try {
+            return ok(productFeedbackReader.opinions(id, cursor, size));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
+    /**
+     * @param page the page number, starting at zero
+     * @param size how many products per page, as many as the details list by default
+     */
+    @GetMapping("/seller-products")
+    ResponseEntity<?> sellerProducts(@PathVariable("id") UUID id,
+                                     @RequestParam(value = "page", defaultValue = "0") int page,
+                                     @RequestParam(value = "size", defaultValue = "${products.seller-products.page-size:8}") int size) {
+
+        if (page < 0 || size < 1 || size > maxSellerProductsPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must not be negative and size must be between 1 and " + maxSellerProductsPageSize);
+        }
+
+        if (!knownProductIds.exists(id, productRepository::existsById)) {
+            logger.info("product {} does not exist", id);
+            return notFound().build();
+        }
+
+        var products = productRepository.findSellerOtherProducts(id, PageRequest.of(page, size));
+        return ok(new ProductSummariesResponse(products));
+    }
 }
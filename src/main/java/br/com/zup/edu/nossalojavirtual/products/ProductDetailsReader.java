@@ -0,0 +1,65 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.categories.CategoryTree;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Read path of the product details page.
+ *
+ * Everything {@link ProductDetailsResponse} needs is loaded by a fixed number of queries,
+ * no matter how deep the category hierarchy is, how many products the seller has
+ * or how many questions and opinions the product has, only their first page is read
+ */
+@Component
+class ProductDetailsReader {
+
+    private final ProductRepository productRepository;
+    private final ProductFeedbackReader productFeedbackReader;
+    private final CategoryTree categoryTree;
+    private final int sellerProductsPageSize;
+
+    /**
+     * @param sellerProductsPageSize how many of the seller other products are listed in the details
+     */
+    ProductDetailsReader(ProductRepository productRepository,
+                         ProductFeedbackReader productFeedbackReader,
+                         CategoryTree categoryTree,
+                         @Value("${products.seller-products.page-size:8}") int sellerProductsPageSize) {
+        this.productRepository = productRepository;
+        this.productFeedbackReader = productFeedbackReader;
+        this.categoryTree = categoryTree;
+        this.sellerProductsPageSize = sellerProductsPageSize;
+    }
+
+    /**
+     * @param id the product id
+     * @return the product details, if the product exists, without the seller details URI that depends on the request
+     */
+    @Transactional
+    public Optional<ProductDetailsResponse> read(UUID id) {
+
+        Optional<Product> possibleProduct = productRepository.findDetailsById(id);
+        if (possibleProduct.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Product product = possibleProduct.get();
+        productRepository.fetchPhotos(product);
+
+        CursorPage<ProductOpinionResponse> opinions = productFeedbackReader.opinions(id, null, null);
+        CursorPage<QuestionResponse> questions = productFeedbackReader.questions(id, null, null);
+
+        Slice<ProductSummary> sellerOtherProducts = productRepository.findSellerOtherProducts(id, PageRequest.of(0, sellerProductsPageSize));
+        List<String> categoryHierarchy = categoryTree.hierarchyNamesOf(product.getCategory().getId());
+
+        return Optional.of(new ProductDetailsResponse(product, categoryHierarchy, sellerOtherProducts, opinions, questions));
+    }
+}
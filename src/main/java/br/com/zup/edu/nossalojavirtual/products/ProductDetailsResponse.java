@@ -1,16 +1,20 @@
 package br.com.zup.edu.nossalojavirtual.products;
 
-import br.com.zup.edu.nossalojavirtual.categories.Category;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.UUID;
 
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toUnmodifiableList;
 
+/**
+ * The product details, cached without anything that depends on the request,
+ * the seller details URI is added to a copy for each request by {@link #withSellersDetails(UriComponentsBuilder)}
+ */
 class ProductDetailsResponse {
 
     private UUID id;
@@ -19,12 +23,18 @@ class ProductDetailsResponse {
     private List<CharacteristicResponse> characteristics;
     private List<String> photos;
     private List<SimpleProductDetailsResponse> sellerOtherProducts;
+    private boolean moreSellerOtherProducts;
     private String description;
     private List<String> categoryHierarchy;
+    private String sellersEmail;
     private String sellersDetails;
     private BigDecimal rating;
+    private long ratingCount;
+    private Map<Integer, Long> ratingHistogram;
     private List<ProductOpinionResponse> opinions;
+    private String opinionsCursor;
     private List<QuestionResponse> questions;
+    private String questionsCursor;
 
     /**
      * @deprecated framework eyes only
@@ -32,19 +42,18 @@ class ProductDetailsResponse {
     @Deprecated
     private ProductDetailsResponse() { }
 
-    ProductDetailsResponse(Product product, UriComponentsBuilder uriBuilder) {
+    ProductDetailsResponse(Product product,
+                           List<String> categoryHierarchy,
+                           Slice<ProductSummary> sellerOtherProducts,
+                           CursorPage<ProductOpinionResponse> opinions,
+                           CursorPage<QuestionResponse> questions) {
         this.id = product.getId();
         this.price = product.getPrice();
         this.stockQuantity = product.getStockQuantity();
         this.description = product.getDescription();
-        this.categoryHierarchy = product.getCategoriesHierarchy()
-                                        .stream()
-                                        .map(Category::getName)
-                                        .collect(toUnmodifiableList());
+        this.categoryHierarchy = categoryHierarchy;
 
-        this.sellersDetails = uriBuilder.path("/api/products/{email}")
-                                        .buildAndExpand(product.sellerEmail())
-                                        .toString();
+        this.sellersEmail = product.sellerEmail();
 
         this.characteristics = CharacteristicResponse.from(product.getCharacteristics());
 
@@ -53,25 +62,48 @@ class ProductDetailsResponse {
                              .map(Photo::getUrl)
                              .collect(toList());
 
-        this.sellerOtherProducts = makeSellerOtherProductResponse(product.sellerOtherProducts());
+        this.sellerOtherProducts = SimpleProductDetailsResponse.from(sellerOtherProducts.getContent());
+        this.moreSellerOtherProducts = sellerOtherProducts.hasNext();
         this.rating = product.rating();
-        this.opinions = ProductOpinionResponse.from(product.getOpinions());
-
-        List<Question> questions = sortQuestionByNewest(product.getQuestions());
-        this.questions = QuestionResponse.from(questions);
-
+        this.ratingCount = product.getRatingSummary().getCount();
+        this.ratingHistogram = product.getRatingSummary().histogram();
+        this.opinions = opinions.getItems();
+        this.opinionsCursor = opinions.getNextCursor();
+        this.questions = questions.getItems();
+        this.questionsCursor = questions.getNextCursor();
+    }
+
+    private ProductDetailsResponse(ProductDetailsResponse details, String sellersDetails) {
+        this.id = details.id;
+        this.price = details.price;
+        this.stockQuantity = details.stockQuantity;
+        this.characteristics = details.characteristics;
+        this.photos = details.photos;
+        this.sellerOtherProducts = details.sellerOtherProducts;
+        this.moreSellerOtherProducts = details.moreSellerOtherProducts;
+        this.description = details.description;
+        this.categoryHierarchy = details.categoryHierarchy;
+        this.sellersEmail = details.sellersEmail;
+        this.sellersDetails = sellersDetails;
+        this.rating = details.rating;
+        this.ratingCount = details.ratingCount;
+        this.ratingHistogram = details.ratingHistogram;
+        this.opinions = details.opinions;
+        this.opinionsCursor = details.opinionsCursor;
+        this.questions = details.questions;
+        this.questionsCursor = details.questionsCursor;
     }
 
-    private List<SimpleProductDetailsResponse> makeSellerOtherProductResponse(Set<Product> sellerOtherProducts) {
-        return sellerOtherProducts.stream()
-                                  .map(SimpleProductDetailsResponse::new)
-                                  .collect(toUnmodifiableList());
-    }
+    /**
+     * @param uriBuilder build uri component of the current request
+     * @return a copy of these details with the seller details URI of the current request
+     */
+    ProductDetailsResponse withSellersDetails(UriComponentsBuilder uriBuilder) {
+        String sellersDetails = uriBuilder.path("/api/products/{email}")
+                                          .buildAndExpand(sellersEmail)
+                                          .toString();
 
-    private List<Question> sortQuestionByNewest(List<Question> questions) {
-        return questions.stream()
-                .sorted((q1, q2) -> q2.getCreatedAt().compareTo(q1.getCreatedAt()))
-                .collect(toUnmodifiableList());
+        return new ProductDetailsResponse(this, sellersDetails);
     }
 
     public UUID getId() {
@@ -98,6 +130,13 @@ class ProductDetailsResponse {
         return sellerOtherProducts;
     }
 
+    /**
+     * @return true if the seller has more products than listed, they are read from <code>/api/products/{id}/seller-products</code>
+     */
+    public boolean isMoreSellerOtherProducts() {
+        return moreSellerOtherProducts;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -114,18 +153,40 @@ class ProductDetailsResponse {
         return rating;
     }
 
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    public Map<Integer, Long> getRatingHistogram() {
+        return ratingHistogram;
+    }
+
     public List<ProductOpinionResponse> getOpinions() {
         return opinions;
     }
 
+    /**
+     * @return the cursor of the next opinions page, null if there are no more opinions
+     */
+    public String getOpinionsCursor() {
+        return opinionsCursor;
+    }
+
     public List<QuestionResponse> getQuestions() {
         return questions;
     }
 
+    /**
+     * @return the cursor of the next questions page, null if there are no more questions
+     */
+    public String getQuestionsCursor() {
+        return questionsCursor;
+    }
+
     /**
      * Represents a product with its basic information
      */
-    private static class SimpleProductDetailsResponse {
+    static class SimpleProductDetailsResponse {
 
         private UUID id;
         private Photo photo;
@@ -138,9 +199,9 @@ class ProductDetailsResponse {
         @Deprecated
         private SimpleProductDetailsResponse() { }
 
-        private SimpleProductDetailsResponse(Product product) {
+        private SimpleProductDetailsResponse(ProductSummary product) {
             this.id = product.getId();
-            this.photo = product.getPhotos().get(0);
+            this.photo = new Photo(product.getPhotoUrl());
             this.name = product.getName();
             this.price = product.getPrice();
         }
@@ -160,5 +221,11 @@ class ProductDetailsResponse {
         public BigDecimal getPrice() {
             return price;
         }
+
+        static List<SimpleProductDetailsResponse> from(List<ProductSummary> products) {
+            return products.stream()
+                           .map(SimpleProductDetailsResponse::new)
+                           .collect(toUnmodifiableList());
+        }
     }
 }
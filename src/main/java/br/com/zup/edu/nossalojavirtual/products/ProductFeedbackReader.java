@@ -0,0 +1,98 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads the questions and opinions of a product a page at a time, newest first.
+ *
+ * Pages are sorted by the database and read after a cursor instead of an offset,
+ * so any page costs the same no matter how many questions or opinions the product has
+ */
+@Component
+class ProductFeedbackReader {
+
+    private final QuestionRepository questionRepository;
+    private final ProductOpinionRepository productOpinionRepository;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    /**
+     * @param defaultPageSize the page size when none is asked
+     * @param maxPageSize the largest page size that can be asked
+     */
+    ProductFeedbackReader(QuestionRepository questionRepository,
+                          ProductOpinionRepository productOpinionRepository,
+                          @Value("${products.feedback.page-size:10}") int defaultPageSize,
+                          @Value("${products.feedback.max-page-size:50}") int maxPageSize) {
+        this.questionRepository = questionRepository;
+        this.productOpinionRepository = productOpinionRepository;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * @param productId the product id
+     * @param cursor where the page starts, null for the first page
+     * @param size the page size, null for the default size
+     * @throws IllegalArgumentException if the cursor or the size are invalid
+     */
+    CursorPage<QuestionResponse> questions(UUID productId, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<Question> questions;
+        if (cursor == null) {
+            questions = questionRepository.findNewestByProduct(productId, pageable);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            questions = questionRepository.findNewestByProductBefore(productId, position.getCreatedAt(), position.getId(), pageable);
+        }
+
+        return CursorPage.of(questions,
+                             pageSize,
+                             question -> KeysetCursor.encode(question.getCreatedAt(), question.getId()),
+                             QuestionResponse::new);
+    }
+
+    /**
+     * @param productId the product id
+     * @param cursor where the page starts, null for the first page
+     * @param size the page size, null for the default size
+     * @throws IllegalArgumentException if the cursor or the size are invalid
+     */
+    CursorPage<ProductOpinionResponse> opinions(UUID productId, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<ProductOpinion> opinions;
+        if (cursor == null) {
+            opinions = productOpinionRepository.findNewestByProduct(productId, pageable);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            opinions = productOpinionRepository.findNewestByProductBefore(productId, position.getCreatedAt(), position.getId(), pageable);
+        }
+
+        return CursorPage.of(opinions,
+                             pageSize,
+                             opinion -> KeysetCursor.encode(opinion.getCreatedAt(), opinion.getId()),
+                             ProductOpinionResponse::new);
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxPageSize);
+        }
+
+        return size;
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.UUID;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_EMPTY;
+
+/**
+ * The outcome of one item of a bulk import, identified by its position in the payload
+ */
+@JsonInclude(NON_EMPTY)
+class ProductImportResult {
+
+    private final int index;
+    private final ImportStatus status;
+    private final UUID productId;
+    private final List<String> errors;
+
+    private ProductImportResult(int index, ImportStatus status, UUID productId, List<String> errors) {
+        this.index = index;
+        this.status = status;
+        this.productId = productId;
+        this.errors = errors;
+    }
+
+    static ProductImportResult created(int index, UUID productId) {
+        return new ProductImportResult(index, ImportStatus.CREATED, productId, List.of());
+    }
+
+    static ProductImportResult invalid(int index, List<String> errors) {
+        return new ProductImportResult(index, ImportStatus.INVALID, null, errors);
+    }
+
+    static ProductImportResult failed(int index, String error) {
+        return new ProductImportResult(index, ImportStatus.FAILED, null, List.of(String.valueOf(error)));
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public ImportStatus getStatus() {
+        return status;
+    }
+
+    public UUID getProductId() {
+        return productId;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    enum ImportStatus {
+        CREATED,
+        INVALID,
+        FAILED
+    }
+}
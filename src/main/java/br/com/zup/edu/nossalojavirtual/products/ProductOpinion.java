@@ -7,17 +7,22 @@ import org.hibernate.validator.constraints.Range;
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PastOrPresent;
+import java.time.LocalDateTime;
 
+import static java.time.LocalDateTime.now;
 import static java.util.Objects.requireNonNull;
-import static javax.persistence.GenerationType.IDENTITY;
+import static javax.persistence.GenerationType.SEQUENCE;
 import static org.springframework.util.Assert.hasText;
 
-@Table(name = "products_opinion")
+@Table(name = "products_opinion",
+       indexes = @Index(name = "idx_products_opinion_product_created_at", columnList = "product_id, created_at, id"))
 @Entity
 class ProductOpinion {
 
     @Id
-    @GeneratedValue(strategy = IDENTITY)
+    @GeneratedValue(strategy = SEQUENCE, generator = "products_opinion_sequence")
+    @SequenceGenerator(name = "products_opinion_sequence", sequenceName = "products_opinion_sequence", allocationSize = 50)
     private Long id;
 
     @Range(min = 1, max = 5)
@@ -39,6 +44,10 @@ class ProductOpinion {
     @NotNull
     private User user;
 
+    @PastOrPresent
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = now();
+
     /**
      * @deprecated  framework eyes only
      */
@@ -92,4 +101,8 @@ class ProductOpinion {
     public String getDescription() {
         return description;
     }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
 }
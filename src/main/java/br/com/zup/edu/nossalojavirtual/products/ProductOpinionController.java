@@ -1,8 +1,9 @@
 package br.com.zup.edu.nossalojavirtual.products;
 
 import br.com.zup.edu.nossalojavirtual.shared.validators.ObjectIsRegisteredValidator;
+import br.com.zup.edu.nossalojavirtual.shared.validators.RegisteredObjects;
 import br.com.zup.edu.nossalojavirtual.users.User;
-import br.com.zup.edu.nossalojavirtual.users.UserRepository;
+import br.com.zup.edu.nossalojavirtual.users.AuthenticatedUserResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -13,8 +14,12 @@ import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.transaction.Transactional;
 import javax.validation.Valid;
 import java.net.URI;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
 
 import static org.springframework.http.ResponseEntity.created;
 
@@ -27,31 +32,45 @@ class ProductOpinionController {
 
     private final ProductOpinionRepository productOpinionRepository;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
-
-    ProductOpinionController(ProductOpinionRepository productOpinionRepository, ProductRepository productRepository, UserRepository userRepository) {
+    private final AuthenticatedUserResolver authenticatedUserResolver;
+    private final ProductDetailsCache productDetailsCache;
+    private final RegisteredObjects registeredObjects;
+    private final KnownProductIds knownProductIds;
+
+    ProductOpinionController(ProductOpinionRepository productOpinionRepository,
+                             ProductRepository productRepository,
+                             AuthenticatedUserResolver authenticatedUserResolver,
+                             ProductDetailsCache productDetailsCache,
+                             RegisteredObjects registeredObjects,
+                             KnownProductIds knownProductIds) {
         this.productOpinionRepository = productOpinionRepository;
         this.productRepository = productRepository;
-        this.userRepository = userRepository;
+        this.authenticatedUserResolver = authenticatedUserResolver;
+        this.productDetailsCache = productDetailsCache;
+        this.registeredObjects = registeredObjects;
+        this.knownProductIds = knownProductIds;
     }
 
     @PostMapping
-    ResponseEntity<?> create(@RequestBody @Valid NewOpinionRequest newOpinion,
-                             @AuthenticationPrincipal Jwt jwtUser
-                            ) {
+    @Transactional
+    public ResponseEntity<?> create(@RequestBody @Valid NewOpinionRequest newOpinion,
+                                    @AuthenticationPrincipal Jwt jwtUser
+                                   ) {
 
         logger.info("Starting product opinion {} registration", newOpinion.getTitle());
 
         String userEmail = jwtUser.getClaim("email");
 
-        User user = userRepository.findByEmail(userEmail)
+        User user = authenticatedUserResolver.resolveUser(jwtUser)
                 .orElseThrow(() -> {
                     logger.warn("user {} not registered", userEmail);
                     return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "usuário não registrado");
                 });
 
-        var opinion = newOpinion.toProductOpinion(productRepository::findById, user);
+        var opinion = newOpinion.toProductOpinion(findProductById(), user);
         productOpinionRepository.save(opinion);
+        productRepository.addRating(newOpinion.getProductId(), opinion.getRating());
+        productDetailsCache.evict(newOpinion.getProductId());
 
         logger.info("product opinion {} successfully registered", newOpinion.getTitle());
 
@@ -64,6 +83,13 @@ class ProductOpinionController {
         binder.addValidators(new ObjectIsRegisteredValidator<>("productId",
                 "product.id.dontExist",
                 NewOpinionRequest.class,
-                productRepository::existsById));
+                findProductById().andThen(Optional::isPresent)));
+    }
+
+    /**
+     * the product found while the request was validated is not looked up again
+     */
+    private Function<UUID, Optional<Product>> findProductById() {
+        return registeredObjects.finder(Product.class, knownProductIds.guardFinder(productRepository::findById));
     }
 }
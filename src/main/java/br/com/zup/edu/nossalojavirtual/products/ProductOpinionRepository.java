@@ -1,9 +1,35 @@
 package br.com.zup.edu.nossalojavirtual.products;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.repository.Repository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
 
 interface ProductOpinionRepository extends JpaRepository<ProductOpinion, Long> {
 
     ProductOpinion save(ProductOpinion productOpinion);
+
+    /**
+     * @return the first page of the product opinions, newest first
+     */
+    @Query("select o from ProductOpinion o join fetch o.user " +
+           "where o.product.id = :productId " +
+           "order by o.createdAt desc, o.id desc")
+    List<ProductOpinion> findNewestByProduct(@Param("productId") UUID productId, Pageable pageable);
+
+    /**
+     * @return the page of the product opinions registered before the given opinion, newest first
+     */
+    @Query("select o from ProductOpinion o join fetch o.user " +
+           "where o.product.id = :productId " +
+           "and (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id)) " +
+           "order by o.createdAt desc, o.id desc")
+    List<ProductOpinion> findNewestByProductBefore(@Param("productId") UUID productId,
+                                                   @Param("createdAt") LocalDateTime createdAt,
+                                                   @Param("id") Long id,
+                                                   Pageable pageable);
 }
@@ -17,7 +17,7 @@ class ProductOpinionResponse {
     @Deprecated
     private ProductOpinionResponse() { }
 
-    private ProductOpinionResponse(ProductOpinion opinion) {
+    ProductOpinionResponse(ProductOpinion opinion) {
         this.title = opinion.getTitle();
         this.description = opinion.getDescription();
         this.rating = opinion.getRating();
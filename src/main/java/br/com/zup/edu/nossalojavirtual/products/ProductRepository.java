@@ -1,11 +1,17 @@
 package br.com.zup.edu.nossalojavirtual.products;
 
 import br.com.zup.edu.nossalojavirtual.users.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.repository.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 public interface ProductRepository extends JpaRepository<Product, UUID> {
@@ -17,4 +23,140 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
     Optional<Product> findById(UUID uuid);
 
     List<Product> findByUser(User user);
+
+    @Query("select p.id from Product p where p.user = :user")
+    List<UUID> findIdsByUser(@Param("user") User user);
+
+    /**
+     * @return the given photo urls that some product has
+     */
+    @Query("select distinct photo.url from Product p join p.photos photo where photo.url in :urls")
+    Set<String> findPhotoUrlsIn(@Param("urls") Collection<String> urls);
+
+    @Query("select p.stockQuantity from Product p where p.id = :id")
+    Optional<Integer> findStockQuantityById(@Param("id") UUID id);
+
+    @Query("select p.id from Product p order by p.id")
+    Slice<UUID> findAllIds(Pageable pageable);
+
+    /**
+     * Loads the products with everything the search index needs, except the photos
+     *
+     * @see #fetchPhotosByIds(List)
+     */
+    @Query("select distinct p from Product p " +
+           "join fetch p.category " +
+           "left join fetch p.characteristics " +
+           "where p.id in :ids")
+    List<Product> findForIndexing(@Param("ids") List<UUID> ids);
+
+    /**
+     * Initializes the photos of already loaded products in the current persistence context
+     */
+    @Query("select distinct p from Product p left join fetch p.photos where p.id in :ids")
+    List<Product> fetchPhotosByIds(@Param("ids") List<UUID> ids);
+
+    /**
+     * Takes the quantity out of the stock in a single conditional statement, so concurrent purchases
+     * neither oversell nor fail on the product version
+     *
+     * @return 1 if the quantity was available and has been taken, 0 otherwise
+     */
+    @Modifying
+    @Query("update Product p " +
+           "set p.stockQuantity = p.stockQuantity - :quantity, p.version = p.version + 1 " +
+           "where p.id = :id and p.stockQuantity >= :quantity")
+    int decrementStock(@Param("id") UUID id, @Param("quantity") int quantity);
+
+    /**
+     * Loads a product with everything its details page needs that can be fetched without
+     * multiplying rows: category, seller and characteristics
+     */
+    @Query("select distinct p from Product p " +
+           "join fetch p.category " +
+           "join fetch p.user " +
+           "left join fetch p.characteristics " +
+           "where p.id = :id")
+    Optional<Product> findDetailsById(@Param("id") UUID id);
+
+    /**
+     * Initializes the photos of an already loaded product in the current persistence context
+     */
+    @Query("select distinct p from Product p left join fetch p.photos where p = :product")
+    Product fetchPhotos(@Param("product") Product product);
+
+    /**
+     * @param productId the product whose seller other products will be listed, it is not listed itself
+     * @return a page of summaries of the seller other products with their first photo, newest first
+     */
+    @Query("select new br.com.zup.edu.nossalojavirtual.products.ProductSummary(p.id, p.name, p.price, ph.url) " +
+           "from Product p join p.photos ph " +
+           "where p.user.id = (select o.user.id from Product o where o.id = :productId) and p.id <> :productId " +
+           "and index(ph) = 0 " +
+           "order by p.createdAt desc, p.id")
+    Slice<ProductSummary> findSellerOtherProducts(@Param("productId") UUID productId, Pageable pageable);
+
+    /**
+     * @param categoryId the category whose products, and the products of every category below it, will be listed
+     * @return a page of summaries of the products with their first photo, in the order of the pageable
+     */
+    @Query("select new br.com.zup.edu.nossalojavirtual.products.ProductSummary(p.id, p.name, p.price, ph.url) " +
+           "from Product p join p.photos ph, CategoryClosure cc " +
+           "where cc.ancestorId = :categoryId and p.category.id = cc.descendantId and index(ph) = 0")
+    Slice<ProductSummary> findByCategorySubtree(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    /**
+     * Adds a rating to the product rating summary in a single statement, so concurrent opinions are never lost
+     *
+     * @param rating from 1 to 5
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set " +
+           "p.ratingSummary.count = p.ratingSummary.count + 1, " +
+           "p.ratingSummary.sum = p.ratingSummary.sum + :rating, " +
+           "p.ratingSummary.oneStar = p.ratingSummary.oneStar + (case when :rating = 1 then 1 else 0 end), " +
+           "p.ratingSummary.twoStars = p.ratingSummary.twoStars + (case when :rating = 2 then 1 else 0 end), " +
+           "p.ratingSummary.threeStars = p.ratingSummary.threeStars + (case when :rating = 3 then 1 else 0 end), " +
+           "p.ratingSummary.fourStars = p.ratingSummary.fourStars + (case when :rating = 4 then 1 else 0 end), " +
+           "p.ratingSummary.fiveStars = p.ratingSummary.fiveStars + (case when :rating = 5 then 1 else 0 end) " +
+           "where p.id = :id")
+    int addRating(@Param("id") UUID id, @Param("rating") long rating);
+
+    /**
+     * @return how many products have any column of the rating summary, histogram included, that does not match their opinions
+     */
+    @Query(value = "select count(*) from products p " +
+                   "left join (select o.product_id, count(*) as rating_count, sum(o.rating) as rating_sum, " +
+                   "sum(case when o.rating = 1 then 1 else 0 end) as one_star, " +
+                   "sum(case when o.rating = 2 then 1 else 0 end) as two_stars, " +
+                   "sum(case when o.rating = 3 then 1 else 0 end) as three_stars, " +
+                   "sum(case when o.rating = 4 then 1 else 0 end) as four_stars, " +
+                   "sum(case when o.rating = 5 then 1 else 0 end) as five_stars " +
+                   "from products_opinion o group by o.product_id) o on o.product_id = p.product_id " +
+                   "where p.product_rating_count <> coalesce(o.rating_count, 0) " +
+                   "or p.product_rating_sum <> coalesce(o.rating_sum, 0) " +
+                   "or p.product_rating_one_star <> coalesce(o.one_star, 0) " +
+                   "or p.product_rating_two_stars <> coalesce(o.two_stars, 0) " +
+                   "or p.product_rating_three_stars <> coalesce(o.three_stars, 0) " +
+                   "or p.product_rating_four_stars <> coalesce(o.four_stars, 0) " +
+                   "or p.product_rating_five_stars <> coalesce(o.five_stars, 0)",
+           nativeQuery = true)
+    long countDriftedRatingSummaries();
+
+    /**
+     * Recomputes the rating summary of every product from its opinions
+     *
+     * @return how many products were updated
+     */
+    @Modifying
+    @Query(value = "update products p set " +
+                   "product_rating_count = (select count(*) from products_opinion o where o.product_id = p.product_id), " +
+                   "product_rating_sum = (select coalesce(sum(o.rating), 0) from products_opinion o where o.product_id = p.product_id), " +
+                   "product_rating_one_star = (select count(*) from products_opinion o where o.product_id = p.product_id and o.rating = 1), " +
+                   "product_rating_two_stars = (select count(*) from products_opinion o where o.product_id = p.product_id and o.rating = 2), " +
+                   "product_rating_three_stars = (select count(*) from products_opinion o where o.product_id = p.product_id and o.rating = 3), " +
+                   "product_rating_four_stars = (select count(*) from products_opinion o where o.product_id = p.product_id and o.rating = 4), " +
+                   "product_rating_five_stars = (select count(*) from products_opinion o where o.product_id = p.product_id and o.rating = 5)",
+           nativeQuery = true)
+    int rebuildRatingSummaries();
 }
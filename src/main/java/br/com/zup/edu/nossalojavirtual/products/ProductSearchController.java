@@ -0,0 +1,67 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+
+import static org.springframework.http.ResponseEntity.ok;
+
+@RestController
+@RequestMapping("/api/products")
+class ProductSearchController {
+
+    Logger logger = LoggerFactory.getLogger(ProductSearchController.class);
+
+    private final ProductSearchIndex productSearchIndex;
+    private final int maxPageSize;
+    private final int maxResults;
+
+    /**
+     * @param maxResults how deep the pages may go, deeper pages cost more to collect
+     */
+    ProductSearchController(ProductSearchIndex productSearchIndex,
+                            @Value("${products.search.max-page-size:50}") int maxPageSize,
+                            @Value("${products.search.max-results:1000}") int maxResults) {
+        this.productSearchIndex = productSearchIndex;
+        this.maxPageSize = maxPageSize;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * @param text the searched terms, every product is listed, newest first, if it is not sent
+     * @param categoryId lists only the products of this category or of the categories below it
+     * @param page the page number, starting at zero
+     * @param size how many products per page
+     */
+    @GetMapping
+    ResponseEntity<?> search(@RequestParam(value = "q", required = false) String text,
+                             @RequestParam(value = "category", required = false) Long categoryId,
+                             @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+                             @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
+                             @RequestParam(value = "page", defaultValue = "0") int page,
+                             @RequestParam(value = "size", defaultValue = "20") int size) {
+
+        if (page < 0 || size < 1 || size > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must not be negative and size must be between 1 and " + maxPageSize);
+        }
+
+        if ((long) (page + 1) * size > maxResults) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "only the first " + maxResults + " products can be paged through, narrow down the search");
+        }
+
+        logger.debug("Searching products for '{}' in category {}", text, categoryId);
+
+        return ok(productSearchIndex.search(text, categoryId, minPrice, maxPrice, page, size));
+    }
+}
@@ -0,0 +1,476 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.categories.CategoryTree;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.range.DoubleRange;
+import org.apache.lucene.facet.range.DoubleRangeFacetCounts;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static java.util.Objects.isNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Full text index of the products, embedded and kept in a local directory.
+ *
+ * Searches and their facet counts never touch the database. Registered products are added to the index and
+ * stock changes update the indexed stock in place, both after their transaction commits. Searches see the
+ * changes within the refresh interval. The index is kept on disk but derived from the database, so it is rebuilt
+ * whenever it does not hold as many products as the database, on startup and at every verify interval,
+ * and after a write to it failed.
+ */
+@Component
+public class ProductSearchIndex implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String DESCRIPTION = "description";
+    private static final String CHARACTERISTICS = "characteristics";
+    private static final String CATEGORIES = "categories";
+    private static final String CATEGORY_ID = "categoryId";
+    private static final String PRICE = "price";
+    private static final String STOCK = "stock";
+    private static final String PHOTO = "photo";
+    private static final String CREATED_AT = "createdAt";
+
+    private static final String CATEGORY_FACET = "category";
+    private static final int CATEGORY_FACETS = 20;
+
+    /**
+     * a match in the name is worth more than one in the characteristics, which is worth more than one in the description
+     */
+    private static final Map<String, Float> SEARCHED_FIELDS = Map.of(NAME, 3f,
+                                                                      CHARACTERISTICS, 2f,
+                                                                      CATEGORIES, 1.5f,
+                                                                      DESCRIPTION, 1f);
+
+    private static final DoubleRange[] PRICE_RANGES = {
+            new DoubleRange("0-50", 0, true, 50, false),
+            new DoubleRange("50-100", 50, true, 100, false),
+            new DoubleRange("100-500", 100, true, 500, false),
+            new DoubleRange("500-1000", 500, true, 1000, false),
+            new DoubleRange("1000+", 1000, true, Double.POSITIVE_INFINITY, true)
+    };
+
+    private final ProductRepository productRepository;
+    private final CategoryTree categoryTree;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildPageSize;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    private volatile FacetState facetState;
+
+    private volatile boolean writeFailed;
+
+    /**
+     * @param indexDirectory where the index files are kept, it is created if it does not exist
+     * @param rebuildPageSize how many products are read from the database at a time when the index is rebuilt
+     */
+    ProductSearchIndex(ProductRepository productRepository,
+                       CategoryTree categoryTree,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${products.search.index-directory:${java.io.tmpdir}/nossa-loja-virtual/product-index}") Path indexDirectory,
+                       @Value("${products.search.rebuild-page-size:500}") int rebuildPageSize) {
+        this.productRepository = productRepository;
+        this.categoryTree = categoryTree;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.rebuildPageSize = rebuildPageSize;
+
+        facetsConfig.setMultiValued(CATEGORY_FACET, true);
+
+        try {
+            this.directory = FSDirectory.open(indexDirectory);
+            this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("product search index could not be opened at " + indexDirectory, e);
+        }
+    }
+
+    /**
+     * rebuilds the index if it lost a write or if its products count differs from the database one,
+     * as an index left by a previous run against another database does
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${products.search.verify-interval:PT5M}",
+               fixedDelayString = "${products.search.verify-interval:PT5M}")
+    public synchronized void rebuildIfOutOfSync() {
+        long indexed = writer.getDocStats().numDocs;
+        long registered = productRepository.count();
+        if (!writeFailed && indexed == registered) {
+            return;
+        }
+
+        LOG.info("[PRODUCT] [SEARCH] Search index out of sync, {} products indexed, {} registered, last write failed: {}",
+                indexed, registered, writeFailed);
+        rebuild();
+    }
+
+    /**
+     * @return how many products are indexed
+     */
+    public long size() {
+        return writer.getDocStats().numDocs;
+    }
+
+    /**
+     * Replaces the whole index with the products in the database
+     *
+     * @return how many products were indexed
+     */
+    public synchronized long rebuild() {
+        long indexed = 0;
+        writeFailed = false;
+
+        try {
+            writer.deleteAll();
+
+            Pageable pageable = PageRequest.of(0, rebuildPageSize);
+            Slice<UUID> ids;
+            do {
+                ids = productRepository.findAllIds(pageable);
+                List<UUID> pageIds = ids.getContent();
+                List<Document> documents = transactionTemplate.execute(status -> documentsOf(pageIds));
+
+                // products registered while the index is rebuilt may be indexed already
+                for (Document document : documents) {
+                    writer.updateDocument(new Term(ID, document.get(ID)), document);
+                }
+                indexed += documents.size();
+                pageable = ids.nextPageable();
+            } while (ids.hasNext());
+
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException("product search index could not be rebuilt", e);
+        }
+
+        LOG.info("[PRODUCT] [SEARCH] Search index rebuilt with {} products", indexed);
+        return indexed;
+    }
+
+    /**
+     * adds the products to the index, or replaces them if they are already indexed
+     *
+     * @param products products with their category, characteristics and photos loaded
+     */
+    public void index(Collection<Product> products) {
+        List<Document> documents = products.stream()
+                                           .map(this::documentOf)
+                                           .collect(toList());
+
+        afterCommit(() -> {
+            for (Document document : documents) {
+                writer.updateDocument(new Term(ID, document.get(ID)), document);
+            }
+        });
+    }
+
+    /**
+     * updates the indexed stock with the current product stock
+     */
+    public void stockChanged(UUID productId) {
+        afterCommit(() -> {
+            Integer stockQuantity = productRepository.findStockQuantityById(productId).orElse(0);
+            writer.updateNumericDocValue(new Term(ID, productId.toString()), STOCK, stockQuantity);
+        });
+    }
+
+    /**
+     * makes the latest changes visible to searches
+     */
+    @Scheduled(fixedDelayString = "${products.search.refresh-interval:PT1S}")
+    public synchronized void refresh() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            LOG.warn("[PRODUCT] [SEARCH] Search index could not be refreshed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * makes the latest changes durable, so they survive a restart without a rebuild
+     */
+    @Scheduled(fixedDelayString = "${products.search.commit-interval:PT1M}")
+    void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            LOG.warn("[PRODUCT] [SEARCH] Search index could not be committed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param text the searched terms, every product is listed, newest first, if it is blank
+     * @param categoryId only products of this category or of the categories below it, if not null
+     * @param minPrice only products that cost at least this, if not null
+     * @param maxPrice only products that cost at most this, if not null
+     * @param page the page number, starting at zero
+     * @param size how many products per page
+     */
+    ProductSearchResponse search(String text, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, int page, int size) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        boolean listing = isNull(text) || text.isBlank();
+
+        if (listing) {
+            query.add(new MatchAllDocsQuery(), Occur.MUST);
+        } else {
+            SimpleQueryParser parser = new SimpleQueryParser(analyzer, SEARCHED_FIELDS);
+            parser.setDefaultOperator(Occur.MUST);
+            query.add(parser.parse(text), Occur.MUST);
+        }
+
+        if (!isNull(categoryId)) {
+            query.add(new TermQuery(new Term(CATEGORY_ID, categoryId.toString())), Occur.FILTER);
+        }
+
+        if (!isNull(minPrice) || !isNull(maxPrice)) {
+            double min = isNull(minPrice) ? Double.NEGATIVE_INFINITY : minPrice.doubleValue();
+            double max = isNull(maxPrice) ? Double.POSITIVE_INFINITY : maxPrice.doubleValue();
+            query.add(DoublePoint.newRangeQuery(PRICE, min, max), Occur.FILTER);
+        }
+
+        Sort sort = listing ? new Sort(new SortField(CREATED_AT, SortField.Type.LONG, true)) : null;
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                return search(searcher, query.build(), sort, page, size);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("products could not be searched", e);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private ProductSearchResponse search(IndexSearcher searcher, Query query, Sort sort, int page, int size) throws IOException {
+        IndexReader reader = searcher.getIndexReader();
+        if (reader.numDocs() == 0) {
+            return ProductSearchResponse.empty(page);
+        }
+
+        FacetsCollector facetsCollector = new FacetsCollector();
+        int limit = (page + 1) * size;
+        TopDocs topDocs = isNull(sort) ? FacetsCollector.search(searcher, query, limit, facetsCollector)
+                                       : FacetsCollector.search(searcher, query, limit, sort, facetsCollector);
+
+        List<ProductSearchResponse.Item> items = new ArrayList<>();
+        ScoreDoc[] hits = topDocs.scoreDocs;
+        for (int i = page * size; i < hits.length; i++) {
+            items.add(itemOf(searcher, hits[i].doc));
+        }
+
+        List<ProductSearchResponse.CategoryCount> categories = new ArrayList<>();
+        FacetResult categoryCounts = new SortedSetDocValuesFacetCounts(facetStateOf(reader), facetsCollector)
+                .getTopChildren(CATEGORY_FACETS, CATEGORY_FACET);
+        if (!isNull(categoryCounts)) {
+            for (LabelAndValue count : categoryCounts.labelValues) {
+                Long id = Long.valueOf(count.label);
+                categories.add(new ProductSearchResponse.CategoryCount(id, categoryTree.nameOf(id), count.value.longValue()));
+            }
+        }
+
+        List<ProductSearchResponse.PriceRangeCount> prices = new ArrayList<>();
+        FacetResult priceCounts = new DoubleRangeFacetCounts(PRICE, facetsCollector, PRICE_RANGES)
+                .getTopChildren(PRICE_RANGES.length, PRICE);
+        for (LabelAndValue count : priceCounts.labelValues) {
+            prices.add(new ProductSearchResponse.PriceRangeCount(count.label, count.value.longValue()));
+        }
+
+        return new ProductSearchResponse(items, topDocs.totalHits.value, page, categories, prices);
+    }
+
+    private ProductSearchResponse.Item itemOf(IndexSearcher searcher, int docId) throws IOException {
+        Document document = searcher.doc(docId);
+
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(docId, leaves));
+        NumericDocValues stock = DocValues.getNumeric(leaf.reader(), STOCK);
+        long stockQuantity = stock.advanceExact(docId - leaf.docBase) ? stock.longValue() : 0;
+
+        return new ProductSearchResponse.Item(UUID.fromString(document.get(ID)),
+                                              document.get(NAME),
+                                              new BigDecimal(document.get(PRICE)),
+                                              stockQuantity,
+                                              document.get(PHOTO));
+    }
+
+    /**
+     * the facet ordinals are read once per reader, not once per search
+     */
+    private SortedSetDocValuesReaderState facetStateOf(IndexReader reader) throws IOException {
+        FacetState current = this.facetState;
+        if (isNull(current) || current.reader != reader) {
+            current = new FacetState(reader, new DefaultSortedSetDocValuesReaderState(reader));
+            this.facetState = current;
+        }
+
+        return current.state;
+    }
+
+    private List<Document> documentsOf(List<UUID> ids) {
+        List<Product> products = productRepository.findForIndexing(ids);
+        productRepository.fetchPhotosByIds(ids);
+
+        return products.stream()
+                       .map(this::documentOf)
+                       .collect(toList());
+    }
+
+    private Document documentOf(Product product) {
+        Document document = new Document();
+        document.add(new StringField(ID, product.getId().toString(), Store.YES));
+        document.add(new TextField(NAME, product.getName(), Store.YES));
+        document.add(new TextField(DESCRIPTION, product.getDescription(), Store.NO));
+
+        product.getCharacteristics()
+               .forEach(characteristic -> document.add(new TextField(CHARACTERISTICS,
+                       characteristic.getName() + " " + characteristic.getDescription(), Store.NO)));
+
+        Long categoryId = product.getCategory().getId();
+        for (long ancestorId : categoryTree.ancestorsOf(categoryId)) {
+            document.add(new StringField(CATEGORY_ID, String.valueOf(ancestorId), Store.NO));
+            document.add(new SortedSetDocValuesFacetField(CATEGORY_FACET, String.valueOf(ancestorId)));
+        }
+        categoryTree.hierarchyNamesOf(categoryId)
+                    .forEach(name -> document.add(new TextField(CATEGORIES, name, Store.NO)));
+
+        BigDecimal price = product.getPrice();
+        document.add(new DoublePoint(PRICE, price.doubleValue()));
+        document.add(new DoubleDocValuesField(PRICE, price.doubleValue()));
+        document.add(new StoredField(PRICE, price.toPlainString()));
+
+        document.add(new NumericDocValuesField(STOCK, product.getStockQuantity()));
+        document.add(new StoredField(PHOTO, product.getPhotos().get(0).getUrl()));
+        document.add(new NumericDocValuesField(CREATED_AT, product.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli()));
+
+        try {
+            return facetsConfig.build(document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * the index is derived from the database, so a failed write is logged and fixed by the rebuild of the next verification
+     */
+    private void afterCommit(IndexWrite write) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writeNow(write);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                writeNow(write);
+            }
+        });
+    }
+
+    private void writeNow(IndexWrite write) {
+        try {
+            write.run();
+        } catch (IOException | RuntimeException e) {
+            writeFailed = true;
+            LOG.warn("[PRODUCT] [SEARCH] Search index could not be updated: {}", e.getMessage());
+        }
+    }
+
+    private interface IndexWrite {
+        void run() throws IOException;
+    }
+
+    private static final class FacetState {
+
+        private final IndexReader reader;
+        private final SortedSetDocValuesReaderState state;
+
+        private FacetState(IndexReader reader, SortedSetDocValuesReaderState state) {
+            this.reader = reader;
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Lets the operators see how many products are searchable and rebuild the {@link ProductSearchIndex} from the database,
+ * through <code>/actuator/productsearchindex</code>
+ */
+@Component
+@Endpoint(id = "productsearchindex")
+public class ProductSearchIndexEndpoint {
+
+    private final ProductSearchIndex productSearchIndex;
+
+    ProductSearchIndexEndpoint(ProductSearchIndex productSearchIndex) {
+        this.productSearchIndex = productSearchIndex;
+    }
+
+    @ReadOperation
+    public Map<String, Long> size() {
+        return Map.of("indexed", productSearchIndex.size());
+    }
+
+    @WriteOperation
+    public Map<String, Long> rebuild() {
+        return Map.of("indexed", productSearchIndex.rebuild());
+    }
+}
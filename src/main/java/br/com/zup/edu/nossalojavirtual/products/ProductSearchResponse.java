@@ -0,0 +1,137 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A page of the products found and how many of every found product are in each category and price range
+ */
+class ProductSearchResponse {
+
+    private final List<Item> items;
+    private final long total;
+    private final int page;
+    private final List<CategoryCount> categories;
+    private final List<PriceRangeCount> prices;
+
+    ProductSearchResponse(List<Item> items,
+                          long total,
+                          int page,
+                          List<CategoryCount> categories,
+                          List<PriceRangeCount> prices) {
+        this.items = items;
+        this.total = total;
+        this.page = page;
+        this.categories = categories;
+        this.prices = prices;
+    }
+
+    static ProductSearchResponse empty(int page) {
+        return new ProductSearchResponse(List.of(), 0, page, List.of(), List.of());
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * @return the categories with the most found products, a product counts for its category and every category above it
+     */
+    public List<CategoryCount> getCategories() {
+        return categories;
+    }
+
+    public List<PriceRangeCount> getPrices() {
+        return prices;
+    }
+
+    static class Item {
+
+        private final UUID id;
+        private final String name;
+        private final BigDecimal price;
+        private final long stockQuantity;
+        private final String photo;
+
+        Item(UUID id, String name, BigDecimal price, long stockQuantity, String photo) {
+            this.id = id;
+            this.name = name;
+            this.price = price;
+            this.stockQuantity = stockQuantity;
+            this.photo = photo;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public long getStockQuantity() {
+            return stockQuantity;
+        }
+
+        public String getPhoto() {
+            return photo;
+        }
+    }
+
+    static class CategoryCount {
+
+        private final Long id;
+        private final String name;
+        private final long count;
+
+        CategoryCount(Long id, String name, long count) {
+            this.id = id;
+            this.name = name;
+            this.count = count;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    static class PriceRangeCount {
+
+        private final String range;
+        private final long count;
+
+        PriceRangeCount(String range, long count) {
+            this.range = range;
+            this.count = count;
+        }
+
+        public String getRange() {
+            return range;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
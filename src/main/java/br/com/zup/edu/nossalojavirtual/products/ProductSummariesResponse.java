@@ -0,0 +1,34 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.products.ProductDetailsResponse.SimpleProductDetailsResponse;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * A page of product summaries
+ */
+class ProductSummariesResponse {
+
+    private final List<SimpleProductDetailsResponse> items;
+    private final int page;
+    private final boolean hasNext;
+
+    ProductSummariesResponse(Slice<ProductSummary> products) {
+        this.items = SimpleProductDetailsResponse.from(products.getContent());
+        this.page = products.getNumber();
+        this.hasNext = products.hasNext();
+    }
+
+    public List<SimpleProductDetailsResponse> getItems() {
+        return items;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+}
@@ -0,0 +1,44 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * A projection of a product with only what is shown when it is listed
+ */
+public class ProductSummary {
+
+    private final UUID id;
+    private final String name;
+    private final BigDecimal price;
+    private final String photoUrl;
+
+    /**
+     * @param id the product id
+     * @param name the product name
+     * @param price the product price
+     * @param photoUrl the url of the product first photo
+     */
+    public ProductSummary(UUID id, String name, BigDecimal price, String photoUrl) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.photoUrl = photoUrl;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public String getPhotoUrl() {
+        return photoUrl;
+    }
+}
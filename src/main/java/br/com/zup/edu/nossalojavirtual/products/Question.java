@@ -10,15 +10,18 @@ import java.time.LocalDateTime;
 
 import static java.time.LocalDateTime.now;
 import static java.util.Objects.requireNonNull;
-import static javax.persistence.GenerationType.IDENTITY;
+import static javax.persistence.GenerationType.SEQUENCE;
 import static org.springframework.util.Assert.hasText;
 
-@Table(name = "products_questions")
+@Table(name = "products_questions",
+       indexes = @Index(name = "idx_products_questions_product_created_at",
+                        columnList = "question_product_id, question_created_at, question_id"))
 @Entity
 class Question {
 
     @Id
-    @GeneratedValue(strategy = IDENTITY)
+    @GeneratedValue(strategy = SEQUENCE, generator = "products_questions_sequence")
+    @SequenceGenerator(name = "products_questions_sequence", sequenceName = "products_questions_sequence", allocationSize = 50)
     @Column(name = "question_id")
     private Long id;
 
@@ -1,7 +1,7 @@
 package br.com.zup.edu.nossalojavirtual.products;
 
 import br.com.zup.edu.nossalojavirtual.users.User;
-import br.com.zup.edu.nossalojavirtual.users.UserRepository;
+import br.com.zup.edu.nossalojavirtual.users.AuthenticatedUserResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
@@ -15,49 +15,98 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.net.URI;
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.springframework.http.ResponseEntity.created;
 import static org.springframework.http.ResponseEntity.notFound;
+import static org.springframework.http.ResponseEntity.ok;
 
 @RestController
 @RequestMapping("/api/products/{id}/questions")
 class QuestionController {
 
+    private static final String LIST_VIEW = "list";
+    private static final String PAGE_VIEW = "page";
+    private static final String QUESTION_VIEW = "question";
+
     Logger logger = LoggerFactory.getLogger(QuestionController.class);
 
     private final ProductRepository productRepository;
     private final QuestionRepository questionRepository;
     private final ApplicationEventPublisher publisher;
-    private final UserRepository userRepository;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
+    private final ProductDetailsCache productDetailsCache;
+    private final ProductFeedbackReader productFeedbackReader;
+    private final KnownProductIds knownProductIds;
 
     QuestionController(ProductRepository productRepository,
                        QuestionRepository questionRepository,
-                       ApplicationEventPublisher publisher, UserRepository userRepository) {
+                       ApplicationEventPublisher publisher,
+                       AuthenticatedUserResolver authenticatedUserResolver,
+                       ProductDetailsCache productDetailsCache,
+                       ProductFeedbackReader productFeedbackReader,
+                       KnownProductIds knownProductIds) {
         this.productRepository = productRepository;
         this.questionRepository = questionRepository;
         this.publisher = publisher;
-        this.userRepository = userRepository;
+        this.authenticatedUserResolver = authenticatedUserResolver;
+        this.productDetailsCache = productDetailsCache;
+        this.productFeedbackReader = productFeedbackReader;
+        this.knownProductIds = knownProductIds;
     }
 
+    /**
+     * @param cursor the <code>nextCursor</code> of the previous page, absent for the first page
+     * @param size how many questions per page
+     */
+    @GetMapping
+    ResponseEntity<?> list(@PathVariable("id") UUID id,
+                           @RequestParam(value = "cursor", required = false) String cursor,
+                           @RequestParam(value = "size", required = false) Integer size) {
+
+        if (!knownProductIds.exists(id, productRepository::existsById)) {
+            logger.warn("product {} not registered", id);
+            return notFound().build();
+        }
+
+        try {
+            return ok(productFeedbackReader.questions(id, cursor, size));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * The body is a JSON array of questions by default, as it always was, but only the newest questions page is listed
+     * instead of every question of the product.
+     *
+     * @param view <code>list</code> to answer with the newest questions page as an array, the created question first,
+     *             <code>page</code> to answer with the same page and the cursor of the following pages,
+     *             <code>question</code> to answer with the created question only
+     */
     @PostMapping
     ResponseEntity<?> askQuestion(@PathVariable("id") UUID id,
                                   @RequestBody @Valid NewQuestionRequest newQuestion,
+                                  @RequestParam(value = "view", defaultValue = LIST_VIEW) String view,
                                   @AuthenticationPrincipal Jwt jwtUser,
                                   UriComponentsBuilder uriBuilder) {
 
+        if (!LIST_VIEW.equals(view) && !PAGE_VIEW.equals(view) && !QUESTION_VIEW.equals(view)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "view must be " + LIST_VIEW + ", " + PAGE_VIEW + " or " + QUESTION_VIEW);
+        }
+
         logger.info("Starting registration of question {} about product {}", newQuestion.getTitle(), id);
 
         String userEmail = jwtUser.getClaim("email");
 
-        User user = userRepository.findByEmail(userEmail).orElseThrow(() -> {
+        User user = authenticatedUserResolver.resolveUser(jwtUser).orElseThrow(() -> {
             logger.warn("user {} not registered", userEmail);
             return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "user not registered");
         });
 
-        Optional<Product> possibleProduct = productRepository.findById(id);
+        Optional<Product> possibleProduct = knownProductIds.guardFinder(productRepository::findById).apply(id);
 
         if (possibleProduct.isEmpty()) {
             logger.warn("product {} not registered", id);
@@ -67,17 +116,23 @@ class QuestionController {
         Product product = possibleProduct.get();
         var question = newQuestion.toQuestion(user, product);
         questionRepository.save(question);
+        productDetailsCache.evict(id);
 
         logger.info("question {} successfully registered", newQuestion.getTitle());
 
-        publisher.publishEvent(new QuestionEvent(question, uriBuilder));
+        publisher.publishEvent(new QuestionEvent(question, userEmail, uriBuilder));
 
         var location = URI.create("/api/products/" + id.toString() + "/questions/" + question.getId());
-        List<Question> questions = questionRepository.findByProduct(possibleProduct.get());
 
-        List<QuestionResponse> response = QuestionResponse.from(questions);
+        if (QUESTION_VIEW.equals(view)) {
+            return created(location).body(new QuestionResponse(question, userEmail));
+        }
 
-        return created(location).body(response);
+        CursorPage<QuestionResponse> newestQuestions = productFeedbackReader.questions(id, null, null);
+        if (PAGE_VIEW.equals(view)) {
+            return created(location).body(newestQuestions);
+        }
 
+        return created(location).body(newestQuestions.getItems());
     }
 }
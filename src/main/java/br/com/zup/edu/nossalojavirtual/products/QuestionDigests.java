@@ -0,0 +1,207 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.shared.email.Email;
+import br.com.zup.edu.nossalojavirtual.shared.email.EmailDispatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Groups the questions asked about a product into a single digest email to its seller.
+ *
+ * The first question about a product opens a digest, the following ones asked within the window join it.
+ * A digest is sent once its window is over or once it holds the maximum questions.
+ * At most the maximum digests are held in memory, questions beyond them are sent on their own.
+ * A single question is sent from its asker, a digest of several askers is sent from the digest address
+ * and lists who asked each question.
+ *
+ * The questions waiting in the digests are published as <code>products.question-digests.pending</code>
+ */
+@Component
+class QuestionDigests implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QuestionDigests.class);
+
+    private final Map<DigestKey, Digest> digests = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final EmailDispatcher emailDispatcher;
+    private final String from;
+    private final Duration window;
+    private final int maxDigests;
+    private final int maxQuestions;
+
+    /**
+     * @param from the sender of the digests with more than one question
+     * @param window how long a digest collects questions, zero sends every question on its own
+     * @param maxDigests how many digests are held in memory at most
+     * @param maxQuestions how many questions a digest holds before it is sent
+     */
+    QuestionDigests(EmailDispatcher emailDispatcher,
+                    MeterRegistry meterRegistry,
+                    @Value("${products.question-digest.from:perguntas@nossalojavirtual.com}") String from,
+                    @Value("${products.question-digest.window:PT5M}") Duration window,
+                    @Value("${products.question-digest.max-digests:10000}") int maxDigests,
+                    @Value("${products.question-digest.max-questions:50}") int maxQuestions) {
+
+        this.emailDispatcher = emailDispatcher;
+        this.from = from;
+        this.window = window;
+        this.maxDigests = maxDigests;
+        this.maxQuestions = maxQuestions;
+
+        meterRegistry.gauge("products.question-digests.pending", pending);
+    }
+
+    /**
+     * @param questionEvent the question to be told to the seller
+     */
+    void add(QuestionEvent questionEvent) {
+        if (window.isZero()) {
+            send(new Digest(questionEvent, 0L));
+            return;
+        }
+
+        DigestKey key = new DigestKey(questionEvent.getSellersEmail(), questionEvent.getProduct().getId());
+        if (digests.size() >= maxDigests && !digests.containsKey(key)) {
+            LOG.warn("[PRODUCT] [QUESTION-DIGEST] {} digests pending, question {} sent on its own", maxDigests, questionEvent.getId());
+            send(new Digest(questionEvent, 0L));
+            return;
+        }
+
+        List<Digest> full = new ArrayList<>(1);
+        digests.compute(key, (k, digest) -> {
+            if (digest == null) {
+                digest = new Digest(questionEvent, System.nanoTime());
+            } else {
+                digest.questions.add(questionEvent);
+            }
+
+            if (digest.questions.size() < maxQuestions) {
+                return digest;
+            }
+
+            full.add(digest);
+            return null;
+        });
+        pending.incrementAndGet();
+
+        full.forEach(this::sendPending);
+    }
+
+    /**
+     * sends every digest whose window is over
+     */
+    @Scheduled(initialDelayString = "${products.question-digest.flush-interval:PT10S}",
+               fixedDelayString = "${products.question-digest.flush-interval:PT10S}")
+    void flush() {
+        long now = System.nanoTime();
+        digests.forEach((key, digest) -> {
+            if (now - digest.openedAt >= window.toNanos() && digests.remove(key, digest)) {
+                sendPending(digest);
+            }
+        });
+    }
+
+    /**
+     * sends every digest, whether its window is over or not
+     */
+    void flushAll() {
+        digests.forEach((key, digest) -> {
+            if (digests.remove(key, digest)) {
+                sendPending(digest);
+            }
+        });
+    }
+
+    private void sendPending(Digest digest) {
+        pending.addAndGet(-digest.questions.size());
+        send(digest);
+    }
+
+    private void send(Digest digest) {
+        QuestionEvent first = digest.questions.get(0);
+
+        String sender;
+        String subject;
+        String body;
+        if (digest.questions.size() == 1) {
+            sender = first.getPossibleBuyer();
+            subject = " You have a new question";
+            body = first.getTitle() + " in " + first.getProductUri();
+        } else {
+            sender = from;
+            subject = " You have " + digest.questions.size() + " new questions";
+            body = digest.questions.stream()
+                                   .map(question -> question.getTitle() + " asked by " + question.getPossibleBuyer())
+                                   .collect(joining("\n", "In " + first.getProductUri() + ":\n", ""));
+        }
+
+        Email email = Email.to(first.getSellersEmail())
+                           .from(sender)
+                           .subject(subject)
+                           .body(body)
+                           .product(first.getProduct())
+                           .build();
+
+        emailDispatcher.dispatch(email);
+    }
+
+    /**
+     * the pending digests are sent before the {@link EmailDispatcher} stops
+     */
+    @Override
+    public void destroy() {
+        flushAll();
+    }
+
+    private static class Digest {
+
+        private final List<QuestionEvent> questions = new ArrayList<>();
+        private final long openedAt;
+
+        private Digest(QuestionEvent questionEvent, long openedAt) {
+            this.questions.add(questionEvent);
+            this.openedAt = openedAt;
+        }
+    }
+
+    private static class DigestKey {
+
+        private final String sellersEmail;
+        private final UUID productId;
+
+        private DigestKey(String sellersEmail, UUID productId) {
+            this.sellersEmail = sellersEmail;
+            this.productId = productId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            DigestKey digestKey = (DigestKey) o;
+            return Objects.equals(sellersEmail, digestKey.sellersEmail) &&
+                    Objects.equals(productId, digestKey.productId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sellersEmail, productId);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package br.com.zup.edu.nossalojavirtual.products;
 
-import br.com.zup.edu.nossalojavirtual.users.User;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.StringJoiner;
@@ -20,17 +19,17 @@ class QuestionEvent {
     /**
      *
      * @param question that was created to a specific product
+     * @param possibleBuyer the email of who asked, so the not loaded user of the question is kept as is
      * @param uriBuilder the url creator
      */
-    public QuestionEvent(Question question, UriComponentsBuilder uriBuilder) {
+    public QuestionEvent(Question question, String possibleBuyer, UriComponentsBuilder uriBuilder) {
         this.id = question.getId();
         this.title = question.getTitle();
 
         Product product = question.getProduct();
         this.sellersEmail = product.sellerEmail();
 
-        User user = question.getUser();
-        this.possibleBuyer = user.getUsername();
+        this.possibleBuyer = possibleBuyer;
 
         this.productUri = uriBuilder.path("/api/products/{id}")
                                     .buildAndExpand(product.getId())
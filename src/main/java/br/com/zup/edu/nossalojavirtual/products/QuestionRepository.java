@@ -1,15 +1,40 @@
 package br.com.zup.edu.nossalojavirtual.products;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 interface QuestionRepository extends Repository<Question, Long> {
 
     Question save(Question question);
 
-    List<Question> findByProduct(Product product);
-
     Optional<Question> findById(Long id);
+
+    void deleteAll();
+
+    /**
+     * @return the first page of the product questions, newest first
+     */
+    @Query("select q from Question q join fetch q.user " +
+           "where q.product.id = :productId " +
+           "order by q.createdAt desc, q.id desc")
+    List<Question> findNewestByProduct(@Param("productId") UUID productId, Pageable pageable);
+
+    /**
+     * @return the page of the product questions asked before the given question, newest first
+     */
+    @Query("select q from Question q join fetch q.user " +
+           "where q.product.id = :productId " +
+           "and (q.createdAt < :createdAt or (q.createdAt = :createdAt and q.id < :id)) " +
+           "order by q.createdAt desc, q.id desc")
+    List<Question> findNewestByProductBefore(@Param("productId") UUID productId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
 }
@@ -1,7 +1,5 @@
 package br.com.zup.edu.nossalojavirtual.products;
 
-import br.com.zup.edu.nossalojavirtual.users.User;
-
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -17,12 +15,17 @@ class QuestionResponse {
     
     private LocalDateTime createdAt;
 
-    private QuestionResponse(Question question) {
-        User user = question.getUser();
+    QuestionResponse(Question question) {
+        this(question, question.getUser().getUsername());
+    }
 
+    /**
+     * @param user the username of who asked, for a question whose user is not loaded
+     */
+    QuestionResponse(Question question, String user) {
         this.id = question.getId();
         this.title = question.getTitle();
-        this.user = user.getUsername();
+        this.user = user;
         this.createdAt = question.getCreatedAt();
     }
 
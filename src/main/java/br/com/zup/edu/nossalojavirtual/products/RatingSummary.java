@@ -0,0 +1,67 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Running totals of the product opinions, so the rating is read without loading the opinions.
+ *
+ * The totals are changed only by single update statements in {@link ProductRepository},
+ * never through the entity, and {@link RatingSummaryRebuilder} recomputes them from the opinions
+ */
+@Embeddable
+class RatingSummary {
+
+    @Column(name = "product_rating_count", nullable = false)
+    private long count;
+
+    @Column(name = "product_rating_sum", nullable = false)
+    private long sum;
+
+    @Column(name = "product_rating_one_star", nullable = false)
+    private long oneStar;
+
+    @Column(name = "product_rating_two_stars", nullable = false)
+    private long twoStars;
+
+    @Column(name = "product_rating_three_stars", nullable = false)
+    private long threeStars;
+
+    @Column(name = "product_rating_four_stars", nullable = false)
+    private long fourStars;
+
+    @Column(name = "product_rating_five_stars", nullable = false)
+    private long fiveStars;
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the average rating, zero when the product has no opinions
+     */
+    public BigDecimal average() {
+        if (count == 0) {
+            return BigDecimal.valueOf(0.0);
+        }
+
+        return BigDecimal.valueOf((double) sum / count);
+    }
+
+    /**
+     * @return how many opinions gave each rating, from one to five stars
+     */
+    public Map<Integer, Long> histogram() {
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        histogram.put(1, oneStar);
+        histogram.put(2, twoStars);
+        histogram.put(3, threeStars);
+        histogram.put(4, fourStars);
+        histogram.put(5, fiveStars);
+
+        return histogram;
+    }
+}
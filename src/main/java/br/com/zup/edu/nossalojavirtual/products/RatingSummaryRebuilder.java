@@ -0,0 +1,47 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+
+/**
+ * Recomputes the {@link RatingSummary rating summaries} from the opinions,
+ * reporting how many of them drifted from the opinions since the last rebuild
+ */
+@Component
+public class RatingSummaryRebuilder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RatingSummaryRebuilder.class);
+
+    private final ProductRepository productRepository;
+    private final ProductDetailsCache productDetailsCache;
+
+    RatingSummaryRebuilder(ProductRepository productRepository,
+                           ProductDetailsCache productDetailsCache) {
+        this.productRepository = productRepository;
+        this.productDetailsCache = productDetailsCache;
+    }
+
+    /**
+     * @return how many products had a rating summary that did not match their opinions
+     */
+    @Scheduled(cron = "${products.rating-summary.rebuild-cron:0 0 4 * * *}")
+    @Transactional
+    public long rebuild() {
+        long drifted = productRepository.countDriftedRatingSummaries();
+        if (drifted > 0) {
+            LOG.warn("[PRODUCT] [RATING] {} products had a rating summary that did not match their opinions", drifted);
+        }
+
+        int products = productRepository.rebuildRatingSummaries();
+        if (drifted > 0) {
+            productDetailsCache.evictAll();
+        }
+
+        LOG.info("[PRODUCT] [RATING] Rating summaries of {} products rebuilt", products);
+        return drifted;
+    }
+}
@@ -1,38 +1,22 @@
 package br.com.zup.edu.nossalojavirtual.products;
 
-import br.com.zup.edu.nossalojavirtual.shared.email.Email;
-import br.com.zup.edu.nossalojavirtual.shared.email.EmailRepository;
-import br.com.zup.edu.nossalojavirtual.shared.email.EmailService;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 @Component
 class SendQuestionToSellersEmailListener {
 
-    private final EmailService sendEmail;
-    private final EmailRepository emailRepository;
+    private final QuestionDigests questionDigests;
 
-    SendQuestionToSellersEmailListener(EmailService sendEmail,
-                                       EmailRepository emailRepository) {
-        this.sendEmail = sendEmail;
-        this.emailRepository = emailRepository;
+    SendQuestionToSellersEmailListener(QuestionDigests questionDigests) {
+        this.questionDigests = questionDigests;
     }
 
+    /**
+     * the seller is told about the question in the digest of its product, see {@link QuestionDigests}
+     */
     @EventListener
     void listen(QuestionEvent questionEvent) {
-
-        // TODO: Apply I18N in this messages?
-        var subject = " You have a new question";
-        var body = questionEvent.getTitle() + " in " + questionEvent.getProductUri();
-
-        Email email = Email.to(questionEvent.getSellersEmail())
-                           .from(questionEvent.getPossibleBuyer())
-                           .subject(subject)
-                           .body(body)
-                           .product(questionEvent.getProduct())
-                           .build();
-
-        sendEmail.send(email);
-        emailRepository.save(email);
+        questionDigests.add(questionEvent);
     }
 }
@@ -0,0 +1,58 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.util.UUID;
+
+/**
+ * Reserves product stock for purchases.
+ *
+ * The check and the decrement happen in the same statement, so a hot product under thousands of
+ * concurrent purchases never oversells and never fails because another purchase changed the product first.
+ */
+@Component
+public class StockReservation {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StockReservation.class);
+
+    private final ProductRepository productRepository;
+    private final ProductDetailsCache productDetailsCache;
+    private final ProductSearchIndex productSearchIndex;
+
+    StockReservation(ProductRepository productRepository,
+                     ProductDetailsCache productDetailsCache,
+                     ProductSearchIndex productSearchIndex) {
+        this.productRepository = productRepository;
+        this.productDetailsCache = productDetailsCache;
+        this.productSearchIndex = productSearchIndex;
+    }
+
+    /**
+     * changes the product stock quantity, the reservation is undone if the surrounding transaction rolls back
+     *
+     * @param productId the product to be reserved
+     * @param quantity how many units will be reserved
+     * @return true if there was enough stock and the quantity has been reserved
+     *
+     * @throws IllegalArgumentException if quantity is less than 1
+     */
+    @Transactional
+    public boolean reserve(UUID productId, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("quantity must not be less than 1");
+        }
+
+        boolean reserved = productRepository.decrementStock(productId, quantity) == 1;
+        if (!reserved) {
+            LOG.info("[PRODUCT] [STOCK] Product {} does not have {} units in stock", productId, quantity);
+            return false;
+        }
+
+        productDetailsCache.evict(productId);
+        productSearchIndex.stockChanged(productId);
+        return true;
+    }
+}
@@ -3,6 +3,8 @@ package br.com.zup.edu.nossalojavirtual.purchase;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.RequestMapping;
 
+import java.util.List;
+
 import static org.springframework.web.bind.annotation.RequestMethod.POST;
 
 @FeignClient(url = "localhost:8080/invoice", name = "invoiceSystem")
@@ -11,6 +13,9 @@ interface InvoiceClient {
     @RequestMapping(method = POST, value = "/register/", produces = "application/json")
     void requestInvoice(InvoiceRequest request);
 
+    @RequestMapping(method = POST, value = "/register/batch", produces = "application/json")
+    void requestInvoices(List<InvoiceRequest> requests);
+
     class InvoiceRequest {
 
         private Long purchaseId;
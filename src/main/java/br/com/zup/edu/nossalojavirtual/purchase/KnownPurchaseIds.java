@@ -0,0 +1,35 @@
+package br.com.zup.edu.nossalojavirtual.purchase;
+
+import br.com.zup.edu.nossalojavirtual.shared.validators.ExistenceFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+/**
+ * The ids of the registered purchases, a payment return of an unknown purchase is answered without a query
+ */
+@Component
+class KnownPurchaseIds extends ExistenceFilter<Purchase, Long> {
+
+    private final PurchaseRepository purchaseRepository;
+
+    KnownPurchaseIds(PurchaseRepository purchaseRepository,
+                     MeterRegistry meterRegistry,
+                     @Value("${validators.existence-filter.expected-insertions:1000000}") long expectedInsertions,
+                     @Value("${validators.existence-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        super("purchaseIds", Purchase.class, meterRegistry, expectedInsertions, falsePositiveProbability);
+        this.purchaseRepository = purchaseRepository;
+    }
+
+    @Override
+    protected Long keyOf(Purchase purchase) {
+        return purchase.getId();
+    }
+
+    @Override
+    protected Slice<Long> registeredKeys(Pageable pageable) {
+        return purchaseRepository.findAllIds(pageable);
+    }
+}
@@ -0,0 +1,19 @@
+package br.com.zup.edu.nossalojavirtual.purchase;
+
+import java.util.List;
+
+/**
+ * Delivers the {@link OutboxMessage outbox messages} of one {@link OutboxDestination}
+ */
+interface OutboxDelivery {
+
+    OutboxDestination destination();
+
+    /**
+     * delivers all the messages in a single call to the outer system
+     *
+     * @param messages the messages to be delivered
+     * @throws RuntimeException if the outer system could not be notified, all the messages are retried later
+     */
+    void deliver(List<OutboxMessage> messages);
+}
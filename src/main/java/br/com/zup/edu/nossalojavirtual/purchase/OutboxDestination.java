@@ -0,0 +1,9 @@
+package br.com.zup.edu.nossalojavirtual.purchase;
+
+/**
+ * The outer systems notified through the {@link OutboxMessage outbox}
+ */
+enum OutboxDestination {
+    INVOICE,
+    SELLERS_RANKING
+}
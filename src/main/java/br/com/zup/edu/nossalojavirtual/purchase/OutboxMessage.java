@@ -0,0 +1,157 @@
+package br.com.zup.edu.nossalojavirtual.purchase;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static java.time.LocalDateTime.now;
+import static javax.persistence.EnumType.STRING;
+import static javax.persistence.GenerationType.SEQUENCE;
+import static org.springframework.util.Assert.hasText;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * A notification to an outer system, recorded in the same transaction as the purchase it is about
+ * and delivered later by the {@link OutboxRelay}
+ */
+@Table(name = "outbox_message",
+       indexes = @Index(name = "idx_outbox_message_pending",
+                        columnList = "outbox_message_destination, outbox_message_status, outbox_message_next_attempt_at"))
+@Entity
+class OutboxMessage {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @GeneratedValue(strategy = SEQUENCE, generator = "outbox_message_sequence")
+    @SequenceGenerator(name = "outbox_message_sequence", sequenceName = "outbox_message_sequence", allocationSize = 50)
+    @Id
+    @Column(name = "outbox_message_id")
+    private Long id;
+
+    @NotNull
+    @Enumerated(value = STRING)
+    @Column(name = "outbox_message_destination", nullable = false)
+    private OutboxDestination destination;
+
+    @NotNull
+    @Column(name = "outbox_message_purchase_id", nullable = false)
+    private Long purchaseId;
+
+    @NotBlank
+    @Column(name = "outbox_message_recipient", nullable = false)
+    private String recipient;
+
+    @NotNull
+    @Enumerated(value = STRING)
+    @Column(name = "outbox_message_status", nullable = false)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(name = "outbox_message_attempts", nullable = false)
+    private int attempts;
+
+    @NotNull
+    @Column(name = "outbox_message_created_at", nullable = false)
+    private LocalDateTime createdAt = now();
+
+    @NotNull
+    @Column(name = "outbox_message_next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = createdAt;
+
+    @Column(name = "outbox_message_last_error", length = MAX_ERROR_LENGTH)
+    private String lastError;
+
+    /**
+     * @deprecated hibernate eyes only
+     */
+    @Deprecated
+    private OutboxMessage() { }
+
+    /**
+     * @param destination the outer system to be notified
+     * @param purchaseId the purchase the notification is about
+     * @param recipient the buyer or seller the outer system needs to know about
+     */
+    OutboxMessage(@NotNull OutboxDestination destination,
+                  @NotNull Long purchaseId,
+                  @NotBlank String recipient) {
+
+        notNull(destination, "destination must not be null");
+        notNull(purchaseId, "purchaseId must not be null");
+        hasText(recipient, "recipient must not be empty");
+
+        this.destination = destination;
+        this.purchaseId = purchaseId;
+        this.recipient = recipient;
+    }
+
+    /**
+     * keeps the message from being due for other instances while this one delivers it,
+     * the message is due again when the claim expires if the instance dies before it is done
+     *
+     * @param until when the claim expires
+     */
+    void claim(LocalDateTime until) {
+        this.nextAttemptAt = until;
+    }
+
+    /**
+     * schedules the next attempt doubling the backoff on every failure
+     *
+     * @param error why the delivery failed
+     * @param backoff how long to wait after the first failure
+     * @param maxBackoff the longest wait between two attempts
+     * @param maxAttempts after how many failures the message is given up
+     */
+    void failed(String error, Duration backoff, Duration maxBackoff, int maxAttempts) {
+        this.attempts++;
+        this.lastError = error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+
+        if (attempts >= maxAttempts) {
+            this.status = OutboxStatus.FAILED;
+            return;
+        }
+
+        Duration wait = backoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        this.nextAttemptAt = now().plus(wait.compareTo(maxBackoff) > 0 ? maxBackoff : wait);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public OutboxDestination getDestination() {
+        return destination;
+    }
+
+    public Long getPurchaseId() {
+        return purchaseId;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public OutboxStatus getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    enum OutboxStatus {
+        PENDING,
+        DELIVERED,
+        FAILED
+    }
+}
@@ -0,0 +1,54 @@
+package br.com.zup.edu.nossalojavirtual.purchase;
+
+import br.com.zup.edu.nossalojavirtual.purchase.OutboxMessage.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+interface OutboxMessageRepository extends Repository<OutboxMessage, Long> {
+
+    /**
+     * the lock timeout Hibernate renders as <code>for update skip locked</code>
+     */
+    String SKIP_LOCKED = "-2";
+
+    OutboxMessage save(OutboxMessage message);
+
+    Optional<OutboxMessage> findById(Long id);
+
+    List<OutboxMessage> findAll();
+
+    void deleteAll();
+
+    /**
+     * The rows are locked until the transaction ends, rows locked by another instance are skipped instead of waited for
+     *
+     * @return the oldest messages of the destination in the given status whose next attempt is due
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = SKIP_LOCKED))
+    @Query("select m from OutboxMessage m " +
+           "where m.destination = :destination " +
+           "and m.status = :status " +
+           "and m.nextAttemptAt <= :now " +
+           "order by m.nextAttemptAt, m.id")
+    List<OutboxMessage> findDue(@Param("destination") OutboxDestination destination,
+                                @Param("status") OutboxStatus status,
+                                @Param("now") LocalDateTime now,
+                                Pageable pageable);
+
+    @Modifying
+    @Query("update OutboxMessage m set m.status = :status where m.id in :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") OutboxStatus status);
+}
@@ -0,0 +1,146 @@
+package br.com.zup.edu.nossalojavirtual.purchase;
+
+import br.com.zup.edu.nossalojavirtual.purchase.OutboxMessage.OutboxStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Delivers the {@link OutboxMessage outbox messages} to the outer systems.
+ *
+ * Each destination is drained in its own thread, so a slow or unavailable system does not hold the others back.
+ * The messages due in every poll interval are sent in batch calls of up to the batch size.
+ * Failed messages are retried with exponential backoff until they reach the maximum attempts.
+ * No database connection is held while the outer systems are called.
+ *
+ * Every batch is claimed in a short transaction before it is sent: its rows are selected with
+ * <code>for update skip locked</code> and their next attempt is pushed to the end of the claim timeout,
+ * so instances polling the same table never send the same message twice while the claim holds.
+ */
+@Component
+class OutboxRelay implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final Map<OutboxDestination, OutboxDelivery> deliveries;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final int batchSize;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+    private final Duration claimTimeout;
+
+    /**
+     * @param batchSize how many messages of a destination are sent in a single call
+     * @param backoff how long to wait before retrying a message that failed once
+     * @param maxBackoff the longest wait between two attempts
+     * @param maxAttempts after how many failures a message is given up
+     * @param claimTimeout how long a claimed message is kept from the other instances, longer than a delivery takes
+     */
+    OutboxRelay(OutboxMessageRepository outboxMessageRepository,
+                Collection<OutboxDelivery> deliveries,
+                PlatformTransactionManager transactionManager,
+                @Value("${purchase.outbox.batch-size:100}") int batchSize,
+                @Value("${purchase.outbox.backoff:1s}") Duration backoff,
+                @Value("${purchase.outbox.max-backoff:5m}") Duration maxBackoff,
+                @Value("${purchase.outbox.max-attempts:10}") int maxAttempts,
+                @Value("${purchase.outbox.claim-timeout:5m}") Duration claimTimeout) {
+
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.deliveries = deliveries.stream().collect(toMap(OutboxDelivery::destination, identity()));
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        this.maxAttempts = maxAttempts;
+        this.claimTimeout = claimTimeout;
+
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(this.deliveries.size());
+        executor.setMaxPoolSize(this.deliveries.size());
+        executor.setThreadNamePrefix("outbox-relay-");
+        executor.initialize();
+    }
+
+    /**
+     * delivers every due message, a destination keeps being drained while it has full batches
+     */
+    @Scheduled(initialDelayString = "${purchase.outbox.initial-delay:PT5S}",
+               fixedDelayString = "${purchase.outbox.poll-interval:PT1S}")
+    synchronized void relay() {
+        List<CompletableFuture<Void>> lanes = new ArrayList<>();
+        deliveries.values()
+                  .forEach(delivery -> lanes.add(CompletableFuture.runAsync(() -> drain(delivery), executor)));
+
+        CompletableFuture.allOf(lanes.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void drain(OutboxDelivery delivery) {
+        List<OutboxMessage> batch;
+        do {
+            batch = claim(delivery.destination());
+            deliver(delivery, batch);
+        } while (batch.size() == batchSize);
+    }
+
+    private List<OutboxMessage> claim(OutboxDestination destination) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> due = outboxMessageRepository.findDue(destination,
+                                                                      OutboxStatus.PENDING,
+                                                                      now,
+                                                                      PageRequest.of(0, batchSize));
+            due.forEach(message -> message.claim(now.plus(claimTimeout)));
+            return due;
+        });
+    }
+
+    private void deliver(OutboxDelivery delivery, List<OutboxMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            delivery.deliver(batch);
+        } catch (RuntimeException e) {
+            batch.forEach(message -> message.failed(e.getMessage(), backoff, maxBackoff, maxAttempts));
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(outboxMessageRepository::save));
+
+            LOG.warn("[PURCHASE] [OUTBOX] Delivery of {} messages to {} failed: {}", batch.size(), delivery.destination(), e.getMessage());
+            batch.stream()
+                 .filter(message -> message.getStatus() == OutboxStatus.FAILED)
+                 .forEach(message -> LOG.error("[PURCHASE] [OUTBOX] Message {} to {} given up after {} attempts",
+                         message.getId(), message.getDestination(), message.getAttempts()));
+            return;
+        }
+
+        List<Long> delivered = batch.stream().map(OutboxMessage::getId).collect(toList());
+        transactionTemplate.executeWithoutResult(status -> outboxMessageRepository.updateStatus(delivered, OutboxStatus.DELIVERED));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.springframework.http.ResponseEntity.ok;
@@ -19,10 +20,24 @@ class OuterSystemsMockController {
         return ok().build();
     }
 
+    @PostMapping("/invoice/register/batch")
+    ResponseEntity<?> invoices(@RequestBody List<Map<String, Object>> requests) {
+        System.out.println(requests);
+
+        return ok().build();
+    }
+
     @PostMapping("/sellerRanking/newPurchase")
     ResponseEntity<?> newPurchase(@RequestBody Map<String, Object> request) {
         System.out.println(request);
 
         return ok().build();
     }
+
+    @PostMapping("/sellerRanking/newPurchase/batch")
+    ResponseEntity<?> newPurchases(@RequestBody List<Map<String, Object>> requests) {
+        System.out.println(requests);
+
+        return ok().build();
+    }
 }
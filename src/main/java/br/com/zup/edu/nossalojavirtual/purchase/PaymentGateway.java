@@ -13,9 +13,9 @@ enum PaymentGateway {
     PAYPAL {
 
         @Override
-        String paymentUrl(@NotNull Purchase purchase, @URL String redirectUrl) {
-            notNull(purchase, "purchase must not be null");
-            return String.format("paypal.com/%s?redirectUrl=%s", purchase.getId(), redirectUrl);
+        String paymentUrl(@NotNull Long purchaseId, @URL String redirectUrl) {
+            notNull(purchaseId, "purchaseId must not be null");
+            return String.format("paypal.com/%s?redirectUrl=%s", purchaseId, redirectUrl);
         }
 
         @Override
@@ -25,10 +25,10 @@ enum PaymentGateway {
     },
     PAGSEGURO {
         @Override
-        String paymentUrl(@NotNull Purchase purchase, @URL String redirectUrl) {
-            notNull(purchase, "purchase must not be null");
+        String paymentUrl(@NotNull Long purchaseId, @URL String redirectUrl) {
+            notNull(purchaseId, "purchaseId must not be null");
 
-            return String.format("pagseguro.com?returnId=%s&redirectUrl=%s", purchase.getId(), redirectUrl);
+            return String.format("pagseguro.com?returnId=%s&redirectUrl=%s", purchaseId, redirectUrl);
         }
 
         @Override
@@ -37,7 +37,7 @@ enum PaymentGateway {
         }
     };
 
-    abstract String paymentUrl(@NotNull Purchase purchase, @URL String redirectUrl);
+    abstract String paymentUrl(@NotNull Long purchaseId, @URL String redirectUrl);
 
     public abstract PaymentStatus status(PaymentReturn payment);
 }
@@ -9,7 +9,6 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.transaction.Transactional;
 import javax.validation.Valid;
-import java.util.Set;
 
 import static org.springframework.http.ResponseEntity.ok;
 
@@ -19,12 +18,18 @@ class PaymentGatewayReturnController {
 
 
     private final PurchaseRepository purchaseRepository;
-    private final Set<PostPurchaseAction> postPurchaseActions;
+    private final PurchaseOutbox purchaseOutbox;
+    private final PostPurchaseActionDispatcher postPurchaseActionDispatcher;
+    private final KnownPurchaseIds knownPurchaseIds;
 
     PaymentGatewayReturnController(PurchaseRepository purchaseRepository,
-                                   Set<PostPurchaseAction> postPurchaseActions) {
+                                   PurchaseOutbox purchaseOutbox,
+                                   PostPurchaseActionDispatcher postPurchaseActionDispatcher,
+                                   KnownPurchaseIds knownPurchaseIds) {
         this.purchaseRepository = purchaseRepository;
-        this.postPurchaseActions = postPurchaseActions;
+        this.purchaseOutbox = purchaseOutbox;
+        this.postPurchaseActionDispatcher = postPurchaseActionDispatcher;
+        this.knownPurchaseIds = knownPurchaseIds;
     }
 
     @PostMapping
@@ -36,7 +41,8 @@ class PaymentGatewayReturnController {
 
         PostPaymentProcessedPurchase postPaymentPurchase = purchase.process(paymentReturn);
 
-        postPurchaseActions.forEach(action -> action.execute(postPaymentPurchase, uriBuilder));
+        purchaseOutbox.record(postPaymentPurchase);
+        postPurchaseActionDispatcher.dispatch(postPaymentPurchase, uriBuilder);
 
         return ok().build();
     }
@@ -47,6 +53,6 @@ class PaymentGatewayReturnController {
                 new ObjectIsRegisteredValidator<>("purchaseId",
                         "purchase.id.dontExist",
                         PaymentReturn.class,
-                        purchaseRepository::existsById));
+                        knownPurchaseIds.guard(purchaseRepository::existsById)));
     }
 }
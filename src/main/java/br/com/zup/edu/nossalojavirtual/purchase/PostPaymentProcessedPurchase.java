@@ -1,48 +1,76 @@
 package br.com.zup.edu.nossalojavirtual.purchase;
 
-import br.com.zup.edu.nossalojavirtual.products.Product;
-
 import java.time.LocalDateTime;
+import java.util.UUID;
 
+/**
+ * The state of a purchase right after a payment attempt.
+ *
+ * Only values are copied while the purchase is still managed, no entity is kept,
+ * so the post purchase actions can run in other threads after the transaction is over
+ */
 class PostPaymentProcessedPurchase {
 
-    private final Purchase purchase;
+    private final Long id;
+    private final boolean paymentSuccessful;
+    private final PaymentGateway paymentGateway;
+    private final String buyerEmail;
+    private final String sellerEmail;
+    private final UUID productId;
+    private final String productName;
+    private final int quantity;
+    private final LocalDateTime paymentConfirmedTime;
 
     PostPaymentProcessedPurchase(Purchase purchase) {
 
-        this.purchase = purchase;
+        this.id = purchase.getId();
+        this.paymentSuccessful = purchase.isPaymentSuccessful();
+        this.paymentGateway = purchase.getPaymentGateway();
+        this.buyerEmail = purchase.buyerEmail();
+        this.sellerEmail = purchase.sellerEmail();
+        this.productId = purchase.getProduct().getId();
+        this.productName = purchase.getProduct().getName();
+        this.quantity = purchase.getQuantity();
+        this.paymentConfirmedTime = paymentSuccessful ? purchase.paymentConfirmedTime() : null;
     }
 
     public boolean isPaymentSuccessful() {
-        return purchase.isPaymentSuccessful();
+        return paymentSuccessful;
     }
 
     public Long getId() {
-        return purchase.getId();
+        return id;
     }
 
     public String paymentUrl(String retryPaymentUrl) {
-        return purchase.paymentUrl(retryPaymentUrl);
+        return paymentGateway.paymentUrl(id, retryPaymentUrl);
     }
 
     public String buyerEmail() {
-        return purchase.buyerEmail();
+        return buyerEmail;
     }
 
     public String sellerEmail() {
-        return purchase.sellerEmail();
+        return sellerEmail;
+    }
+
+    public UUID getProductId() {
+        return productId;
     }
 
-    public Product getProduct() {
-        return purchase.getProduct();
+    public String getProductName() {
+        return productName;
     }
 
     public int getQuantity() {
-        return purchase.getQuantity();
+        return quantity;
     }
 
     public LocalDateTime paymentConfirmedTime() {
+        if (!paymentSuccessful) {
+            throw new IllegalStateException("An unfinished Purchase does not have a payment confirmation timestamp");
+        }
 
-        return purchase.paymentConfirmedTime();
+        return paymentConfirmedTime;
     }
 }
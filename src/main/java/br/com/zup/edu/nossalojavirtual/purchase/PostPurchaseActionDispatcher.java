@@ -0,0 +1,165 @@
+package br.com.zup.edu.nossalojavirtual.purchase;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Runs every {@link PostPurchaseAction} on a bounded pool once the payment attempt is committed.
+ *
+ * When the queue is full the action runs in the thread that dispatched it, slowing the payment gateway
+ * callbacks down instead of dropping actions.
+ *
+ * An action still waiting or running when its timeout is over is cancelled, a running one is interrupted,
+ * so the actions must give up when interrupted or bound their own calls, as the Feign clients do with their read timeout.
+ * An action run by the dispatching thread is not interrupted.
+ *
+ * Every action execution is timed from its dispatch until it really ends as <code>purchase.post-actions</code>,
+ * tagged by action and outcome
+ */
+@Component
+class PostPurchaseActionDispatcher implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PostPurchaseActionDispatcher.class);
+
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int TIMED_OUT = 2;
+    private static final int DONE = 3;
+
+    private final Set<PostPurchaseAction> postPurchaseActions;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolTaskExecutor executor;
+    private final ScheduledExecutorService timeouts;
+    private final Duration timeout;
+
+    /**
+     * @param postPurchaseActions the actions executed for every payment attempt
+     * @param meterRegistry where the action and pool metrics are published
+     * @param poolSize how many actions run at the same time
+     * @param queueCapacity how many actions wait for a thread before the dispatching thread runs them itself
+     * @param timeout how long an action may take since it was dispatched before it is cancelled
+     */
+    PostPurchaseActionDispatcher(Set<PostPurchaseAction> postPurchaseActions,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${purchase.post-actions.pool-size:8}") int poolSize,
+                                 @Value("${purchase.post-actions.queue-capacity:500}") int queueCapacity,
+                                 @Value("${purchase.post-actions.timeout:5s}") Duration timeout) {
+
+        this.postPurchaseActions = postPurchaseActions;
+        this.meterRegistry = meterRegistry;
+        this.timeout = timeout;
+
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("post-purchase-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds((int) timeout.toSeconds());
+        executor.initialize();
+
+        this.timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "post-purchase-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        ExecutorServiceMetrics.monitor(meterRegistry, executor.getThreadPoolExecutor(), "postPurchaseActions", emptyList());
+    }
+
+    /**
+     * the actions are dispatched after the running transaction commits, or right away if there is none
+     *
+     * @param postPaymentPurchase the purchase after the payment attempt
+     * @param uriBuilder build uri component
+     */
+    void dispatch(PostPaymentProcessedPurchase postPaymentPurchase, UriComponentsBuilder uriBuilder) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatchNow(postPaymentPurchase, uriBuilder);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatchNow(postPaymentPurchase, uriBuilder);
+            }
+        });
+    }
+
+    private void dispatchNow(PostPaymentProcessedPurchase postPaymentPurchase, UriComponentsBuilder uriBuilder) {
+        postPurchaseActions.forEach(action -> {
+            String actionName = action.getClass().getSimpleName();
+            UriComponentsBuilder actionUriBuilder = uriBuilder.cloneBuilder();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicInteger state = new AtomicInteger(QUEUED);
+
+            Future<?> execution = executor.submit(() -> {
+                if (!state.compareAndSet(QUEUED, RUNNING)) {
+                    return;
+                }
+
+                Throwable error = null;
+                try {
+                    action.execute(postPaymentPurchase, actionUriBuilder);
+                } catch (RuntimeException e) {
+                    error = e;
+                } finally {
+                    boolean timedOut = state.getAndSet(DONE) == TIMED_OUT;
+                    record(sample, actionName, timedOut ? "timeout" : error == null ? "success" : "failure",
+                            postPaymentPurchase, error);
+                }
+            });
+
+            timeouts.schedule(() -> {
+                if (state.compareAndSet(QUEUED, TIMED_OUT)) {
+                    execution.cancel(false);
+                    record(sample, actionName, "timeout", postPaymentPurchase, null);
+                } else if (state.compareAndSet(RUNNING, TIMED_OUT)) {
+                    execution.cancel(true);
+                }
+            }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void record(Timer.Sample sample,
+                        String actionName,
+                        String outcome,
+                        PostPaymentProcessedPurchase postPaymentPurchase,
+                        Throwable error) {
+
+        sample.stop(meterRegistry.timer("purchase.post-actions", "action", actionName, "outcome", outcome));
+
+        if (!"success".equals(outcome)) {
+            LOG.error("[PURCHASE] [POST-ACTION] {} {} for purchase {}", actionName, outcome, postPaymentPurchase.getId(), error);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        timeouts.shutdownNow();
+    }
+}
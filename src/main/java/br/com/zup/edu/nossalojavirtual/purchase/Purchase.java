@@ -2,6 +2,7 @@ package br.com.zup.edu.nossalojavirtual.purchase;
 
 import br.com.zup.edu.nossalojavirtual.products.Product;
 import br.com.zup.edu.nossalojavirtual.purchase.Payment.PaymentStatus;
+import br.com.zup.edu.nossalojavirtual.shared.validators.ExistenceFilterListener;
 import br.com.zup.edu.nossalojavirtual.users.User;
 import org.hibernate.validator.constraints.URL;
 
@@ -14,15 +15,17 @@ import java.util.HashSet;
 import java.util.Set;
 
 import static javax.persistence.EnumType.STRING;
-import static javax.persistence.GenerationType.IDENTITY;
+import static javax.persistence.GenerationType.SEQUENCE;
 import static org.springframework.util.Assert.notNull;
 
 @Table(name = "purchase")
 @Entity
+@EntityListeners(ExistenceFilterListener.class)
 public
 class Purchase {
 
-    @GeneratedValue(strategy = IDENTITY)
+    @GeneratedValue(strategy = SEQUENCE, generator = "purchase_sequence")
+    @SequenceGenerator(name = "purchase_sequence", sequenceName = "purchase_sequence", allocationSize = 50)
     @Id
     @Column(name = "purchase_id")
     private Long id;
@@ -91,7 +94,11 @@ class Purchase {
     }
 
     public String paymentUrl(@URL String redirectUrl) {
-        return paymentGateway.paymentUrl(this, redirectUrl);
+        return paymentGateway.paymentUrl(id, redirectUrl);
+    }
+
+    PaymentGateway getPaymentGateway() {
+        return paymentGateway;
     }
 
     public PostPaymentProcessedPurchase process(PaymentReturn paymentReturn) {
@@ -1,6 +1,8 @@
 package br.com.zup.edu.nossalojavirtual.purchase;
 
+import br.com.zup.edu.nossalojavirtual.products.KnownProductIds;
 import br.com.zup.edu.nossalojavirtual.products.ProductRepository;
+import br.com.zup.edu.nossalojavirtual.products.StockReservation;
 import br.com.zup.edu.nossalojavirtual.shared.validators.ObjectIsRegisteredValidator;
 import br.com.zup.edu.nossalojavirtual.users.User;
 import org.springframework.http.ResponseEntity;
@@ -12,7 +14,6 @@ import org.springframework.web.util.UriComponentsBuilder;
 import javax.transaction.Transactional;
 import javax.validation.Valid;
 import java.util.HashMap;
-import java.util.Optional;
 
 import static org.springframework.http.ResponseEntity.ok;
 
@@ -22,11 +23,17 @@ class PurchaseController {
 
     private final ProductRepository productRepository;
     private final PurchaseRepository purchaseRepository;
+    private final StockReservation stockReservation;
+    private final KnownProductIds knownProductIds;
 
     PurchaseController(ProductRepository productRepository,
-                       PurchaseRepository purchaseRepository) {
+                       PurchaseRepository purchaseRepository,
+                       StockReservation stockReservation,
+                       KnownProductIds knownProductIds) {
         this.productRepository = productRepository;
         this.purchaseRepository = purchaseRepository;
+        this.stockReservation = stockReservation;
+        this.knownProductIds = knownProductIds;
     }
 
     @PostMapping
@@ -35,18 +42,16 @@ class PurchaseController {
                                  User buyer, // TODO: Injetar o usuário autenticado
                                  UriComponentsBuilder uriBuilder) throws BindException {
 
-        var product = productRepository.findById(newPurchase.getProductId()).get();
-
-        Optional<Purchase> possiblePurchase = product.reserveQuantityFor(newPurchase, buyer);
-
-        if (possiblePurchase.isEmpty()) {
+        if (!stockReservation.reserve(newPurchase.getProductId(), newPurchase.getQuantity())) {
             BindException bindException = new BindException(new Object(), "");
             bindException.reject("purchase.product.outOfStock", "This product is out of stock");
 
             throw bindException;
         }
 
-        Purchase purchase = possiblePurchase.get();
+        var product = productRepository.findById(newPurchase.getProductId()).get();
+
+        Purchase purchase = newPurchase.toPurchase(buyer, product);
         purchaseRepository.save(purchase);
 
         var redirectUrl = uriBuilder.path("/api/purchases/confirm-payment")
@@ -69,6 +74,6 @@ class PurchaseController {
                 new ObjectIsRegisteredValidator<>("productId",
                         "product.id.dontExist",
                         NewPurchaseRequest.class,
-                        productRepository::existsById));
+                        knownProductIds.guard(productRepository::existsById)));
     }
 }
@@ -0,0 +1,33 @@
+package br.com.zup.edu.nossalojavirtual.purchase;
+
+import org.springframework.stereotype.Component;
+
+import static br.com.zup.edu.nossalojavirtual.purchase.OutboxDestination.INVOICE;
+import static br.com.zup.edu.nossalojavirtual.purchase.OutboxDestination.SELLERS_RANKING;
+
+/**
+ * Records the outer systems notifications of a purchase, must run in the transaction that processed the payment
+ */
+@Component
+class PurchaseOutbox {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+
+    PurchaseOutbox(OutboxMessageRepository outboxMessageRepository) {
+        this.outboxMessageRepository = outboxMessageRepository;
+    }
+
+    /**
+     * the invoice and sellers ranking systems are notified only about confirmed purchases
+     *
+     * @param postPaymentPurchase the purchase after the payment attempt
+     */
+    void record(PostPaymentProcessedPurchase postPaymentPurchase) {
+        if (!postPaymentPurchase.isPaymentSuccessful()) {
+            return;
+        }
+
+        outboxMessageRepository.save(new OutboxMessage(INVOICE, postPaymentPurchase.getId(), postPaymentPurchase.buyerEmail()));
+        outboxMessageRepository.save(new OutboxMessage(SELLERS_RANKING, postPaymentPurchase.getId(), postPaymentPurchase.sellerEmail()));
+    }
+}
@@ -1,5 +1,8 @@
 package br.com.zup.edu.nossalojavirtual.purchase;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 
 import java.util.Optional;
@@ -11,4 +14,7 @@ interface PurchaseRepository extends Repository<Purchase, Long> {
     Optional<Purchase> findById(Long id);
 
     boolean existsById(Long id);
+
+    @Query("select p.id from Purchase p order by p.id")
+    Slice<Long> findAllIds(Pageable pageable);
 }
@@ -3,6 +3,8 @@ package br.com.zup.edu.nossalojavirtual.purchase;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.RequestMapping;
 
+import java.util.List;
+
 import static org.springframework.web.bind.annotation.RequestMethod.POST;
 
 @FeignClient(url = "localhost:8080/sellerRanking", name = "sellerRankingSystem")
@@ -11,6 +13,9 @@ interface SellersRankingClient {
     @RequestMapping(method = POST, value = "/newPurchase/", produces = "application/json")
     void requestInvoice(SellersRankingRequest request);
 
+    @RequestMapping(method = POST, value = "/newPurchase/batch", produces = "application/json")
+    void notifyPurchases(List<SellersRankingRequest> requests);
+
     class SellersRankingRequest {
 
         private Long purchaseId;
@@ -1,10 +1,14 @@
 package br.com.zup.edu.nossalojavirtual.purchase;
 
+import br.com.zup.edu.nossalojavirtual.purchase.InvoiceClient.InvoiceRequest;
 import org.springframework.stereotype.Component;
-import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
 
 @Component
-class SendPurchaseConfirmationToInvoiceSystem implements PostPurchaseAction {
+class SendPurchaseConfirmationToInvoiceSystem implements OutboxDelivery {
 
     private final InvoiceClient invoiceClient;
 
@@ -12,19 +16,22 @@ class SendPurchaseConfirmationToInvoiceSystem implements PostPurchaseAction {
         this.invoiceClient = invoiceClient;
     }
 
+    @Override
+    public OutboxDestination destination() {
+        return OutboxDestination.INVOICE;
+    }
+
     /**
-     * do the action if purchase is confirmed
+     * notifies the invoice system about confirmed purchases
      *
-     * @param postPaymentPurchase a success post payment purchase
-     * @param uriBuilder build uri component
+     * @param messages the purchase ids and the buyer emails
      */
     @Override
-    public void execute(PostPaymentProcessedPurchase postPaymentPurchase, UriComponentsBuilder uriBuilder) {
-        if (!postPaymentPurchase.isPaymentSuccessful()) {
-            return;
-        }
+    public void deliver(List<OutboxMessage> messages) {
+        List<InvoiceRequest> requests = messages.stream()
+                                                .map(message -> new InvoiceRequest(message.getPurchaseId(), message.getRecipient()))
+                                                .collect(toList());
 
-        InvoiceClient.InvoiceRequest request = new InvoiceClient.InvoiceRequest(postPaymentPurchase.getId(), postPaymentPurchase.buyerEmail());
-        invoiceClient.requestInvoice(request);
+        invoiceClient.requestInvoices(requests);
     }
 }
@@ -2,10 +2,13 @@ package br.com.zup.edu.nossalojavirtual.purchase;
 
 import br.com.zup.edu.nossalojavirtual.purchase.SellersRankingClient.SellersRankingRequest;
 import org.springframework.stereotype.Component;
-import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
 
 @Component
-class SendPurchaseConfirmationToSellersSystem implements PostPurchaseAction {
+class SendPurchaseConfirmationToSellersSystem implements OutboxDelivery {
 
     private final SellersRankingClient sellersRankingClient;
 
@@ -13,19 +16,22 @@ class SendPurchaseConfirmationToSellersSystem implements PostPurchaseAction {
         this.sellersRankingClient = sellersRankingClient;
     }
 
+    @Override
+    public OutboxDestination destination() {
+        return OutboxDestination.SELLERS_RANKING;
+    }
+
     /**
-     * do the action if purchase is confirmed
+     * notifies the sellers ranking system about confirmed purchases
      *
-     * @param postPaymentPurchase a success post payment purchase
-     * @param uriBuilder build uri component
+     * @param messages the purchase ids and the seller emails
      */
     @Override
-    public void execute(PostPaymentProcessedPurchase postPaymentPurchase, UriComponentsBuilder uriBuilder) {
-        if (!postPaymentPurchase.isPaymentSuccessful()) {
-            return;
-        }
+    public void deliver(List<OutboxMessage> messages) {
+        List<SellersRankingRequest> requests = messages.stream()
+                                                       .map(message -> new SellersRankingRequest(message.getPurchaseId(), message.getRecipient()))
+                                                       .collect(toList());
 
-        SellersRankingRequest request = new SellersRankingRequest(postPaymentPurchase.getId(), postPaymentPurchase.sellerEmail());
-        sellersRankingClient.requestInvoice(request);
+        sellersRankingClient.notifyPurchases(requests);
     }
 }
@@ -1,8 +1,8 @@
 package br.com.zup.edu.nossalojavirtual.purchase;
 
-import br.com.zup.edu.nossalojavirtual.products.Product;
+import br.com.zup.edu.nossalojavirtual.products.ProductRepository;
 import br.com.zup.edu.nossalojavirtual.shared.email.Email;
-import br.com.zup.edu.nossalojavirtual.shared.email.EmailService;
+import br.com.zup.edu.nossalojavirtual.shared.email.EmailDispatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -11,10 +11,12 @@ import java.time.format.DateTimeFormatter;
 @Component
 class SendPurchaseEmailConfirmation implements PostPurchaseAction {
 
-    private final EmailService emailService;
+    private final EmailDispatcher emailDispatcher;
+    private final ProductRepository productRepository;
 
-    SendPurchaseEmailConfirmation(EmailService emailService) {
-        this.emailService = emailService;
+    SendPurchaseEmailConfirmation(EmailDispatcher emailDispatcher, ProductRepository productRepository) {
+        this.emailDispatcher = emailDispatcher;
+        this.productRepository = productRepository;
     }
 
     /**
@@ -31,18 +33,16 @@ class SendPurchaseEmailConfirmation implements PostPurchaseAction {
         }
 
         DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("dd/MM/yyy hh:mm:ss");
-        Product product = postPaymentPurchase.getProduct();
-
-        String body = "Your " + postPaymentPurchase.getQuantity() + " product(s): " + product.getName() +
+        String body = "Your " + postPaymentPurchase.getQuantity() + " product(s): " + postPaymentPurchase.getProductName() +
                       " is being prepared! Your purchase was confirmed at " + dateFormat.format(postPaymentPurchase.paymentConfirmedTime());
 
         Email email = Email.to(postPaymentPurchase.buyerEmail())
                 .from(postPaymentPurchase.sellerEmail())
                 .subject("Payment confirmed! Your product is being prepared")
                 .body(body)
-                .product(product)
+                .product(productRepository.getReferenceById(postPaymentPurchase.getProductId()))
                 .build();
 
-        emailService.send(email);
+        emailDispatcher.dispatch(email);
     }
 }
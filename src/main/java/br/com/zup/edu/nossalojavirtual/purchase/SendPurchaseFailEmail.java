@@ -1,17 +1,20 @@
 package br.com.zup.edu.nossalojavirtual.purchase;
 
+import br.com.zup.edu.nossalojavirtual.products.ProductRepository;
 import br.com.zup.edu.nossalojavirtual.shared.email.Email;
-import br.com.zup.edu.nossalojavirtual.shared.email.EmailService;
+import br.com.zup.edu.nossalojavirtual.shared.email.EmailDispatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @Component
 class SendPurchaseFailEmail implements PostPurchaseAction {
 
-    private final EmailService emailService;
+    private final EmailDispatcher emailDispatcher;
+    private final ProductRepository productRepository;
 
-    SendPurchaseFailEmail(EmailService emailService) {
-        this.emailService = emailService;
+    SendPurchaseFailEmail(EmailDispatcher emailDispatcher, ProductRepository productRepository) {
+        this.emailDispatcher = emailDispatcher;
+        this.productRepository = productRepository;
     }
 
     /**
@@ -35,9 +38,9 @@ class SendPurchaseFailEmail implements PostPurchaseAction {
                 .from(postPaymentPurchase.sellerEmail())
                 .subject("Payment could not be confirmed")
                 .body(body)
-                .product(postPaymentPurchase.getProduct())
+                .product(productRepository.getReferenceById(postPaymentPurchase.getProductId()))
                 .build();
 
-        emailService.send(email);
+        emailDispatcher.dispatch(email);
     }
 }
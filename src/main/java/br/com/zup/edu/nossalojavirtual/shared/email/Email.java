@@ -10,7 +10,7 @@ import javax.validation.constraints.PastOrPresent;
 import java.time.LocalDateTime;
 
 import static java.time.LocalDateTime.now;
-import static javax.persistence.GenerationType.IDENTITY;
+import static javax.persistence.GenerationType.SEQUENCE;
 
 /**
  * This class represents the email in the system form
@@ -20,7 +20,8 @@ import static javax.persistence.GenerationType.IDENTITY;
 public class Email {
 
     @Id
-    @GeneratedValue(strategy = IDENTITY)
+    @GeneratedValue(strategy = SEQUENCE, generator = "emails_sequence")
+    @SequenceGenerator(name = "emails_sequence", sequenceName = "emails_sequence", allocationSize = 50)
     private Long id;
 
     @Column(name = "email_receiver")
@@ -0,0 +1,188 @@
+package br.com.zup.edu.nossalojavirtual.shared.email;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends and stores the {@link Email emails} in background workers, once the transaction that produced them commits.
+ *
+ * Every worker takes up to the batch size of queued emails, hands them to the {@link EmailService} one by one
+ * and stores the sent ones in a single transaction, so their inserts go to the database as a JDBC batch.
+ * When the queue is full the email is delivered by the thread that dispatched it instead of being dropped.
+ *
+ * The queued emails are published as <code>emails.dispatch.queue</code> and every delivery is counted
+ * as <code>emails.dispatch</code>, tagged by outcome
+ */
+@Component
+public class EmailDispatcher implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    private static final long POLL_MILLIS = 200;
+
+    private final EmailService emailService;
+    private final EmailRepository emailRepository;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Email> queue;
+    private final ThreadPoolTaskExecutor executor;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final int batchSize;
+    private volatile boolean running = true;
+
+    /**
+     * @param parallelism how many workers send emails at the same time
+     * @param queueCapacity how many emails wait for a worker before the dispatching thread delivers them itself
+     * @param batchSize how many emails a worker sends and stores at once
+     */
+    EmailDispatcher(EmailService emailService,
+                    EmailRepository emailRepository,
+                    MeterRegistry meterRegistry,
+                    PlatformTransactionManager transactionManager,
+                    @Value("${emails.dispatch.parallelism:2}") int parallelism,
+                    @Value("${emails.dispatch.queue-capacity:10000}") int queueCapacity,
+                    @Value("${emails.dispatch.batch-size:50}") int batchSize) {
+
+        this.emailService = emailService;
+        this.emailRepository = emailRepository;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        meterRegistry.gauge("emails.dispatch.queue", queue, BlockingQueue::size);
+
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("email-dispatch-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+
+        for (int i = 0; i < parallelism; i++) {
+            executor.execute(this::work);
+        }
+    }
+
+    /**
+     * the email is queued after the running transaction commits, or right away if there is none
+     *
+     * @param email the email to be sent and stored
+     */
+    public void dispatch(Email email) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(email);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(email);
+            }
+        });
+    }
+
+    /**
+     * waits for every dispatched email to be sent and stored
+     *
+     * @param timeout how long to wait at most
+     * @return true if there is no email left to deliver
+     */
+    public boolean awaitDelivery(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (pending.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private void enqueue(Email email) {
+        pending.incrementAndGet();
+        if (running && queue.offer(email)) {
+            return;
+        }
+
+        LOG.warn("[EMAIL] [DISPATCH] Queue is full, delivering the email to {} in the calling thread", email.getTo());
+        deliver(List.of(email));
+    }
+
+    private void work() {
+        List<Email> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Email first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<Email> batch) {
+        List<Email> sent = new ArrayList<>(batch.size());
+        for (Email email : batch) {
+            try {
+                emailService.send(email);
+                sent.add(email);
+            } catch (RuntimeException e) {
+                meterRegistry.counter("emails.dispatch", "outcome", "failure").increment();
+                LOG.error("[EMAIL] [DISPATCH] Email to {} could not be sent", email.getTo(), e);
+            }
+        }
+
+        try {
+            if (!sent.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> emailRepository.saveAll(sent));
+            }
+            meterRegistry.counter("emails.dispatch", "outcome", "success").increment(sent.size());
+        } catch (RuntimeException e) {
+            meterRegistry.counter("emails.dispatch", "outcome", "unsaved").increment(sent.size());
+            LOG.error("[EMAIL] [DISPATCH] {} sent emails could not be stored", sent.size(), e);
+        } finally {
+            pending.addAndGet(-batch.size());
+        }
+    }
+
+    /**
+     * stops taking new emails, the queued ones are still delivered
+     */
+    @Override
+    public void destroy() {
+        running = false;
+        executor.shutdown();
+    }
+}
@@ -5,4 +5,12 @@ import org.springframework.data.repository.Repository;
 public interface EmailRepository extends Repository<Email, Long> {
 
     Email save(Email email);
+
+    <S extends Email> Iterable<S> saveAll(Iterable<S> emails);
+
+    Iterable<Email> findAll();
+
+    long count();
+
+    void deleteAll();
 }
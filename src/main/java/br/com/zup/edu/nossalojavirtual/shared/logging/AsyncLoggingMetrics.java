@@ -0,0 +1,44 @@
+package br.com.zup.edu.nossalojavirtual.shared.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+
+/**
+ * Publishes, for every {@link DiscardingAsyncAppender} of the root logger, the events waiting in its ring buffer
+ * as <code>logging.async.queue</code> and the dropped events as <code>logging.async.discarded</code>, tagged by appender
+ */
+@Component
+class AsyncLoggingMetrics {
+
+    AsyncLoggingMetrics(MeterRegistry meterRegistry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext)) {
+            return;
+        }
+
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Iterator<Appender<ILoggingEvent>> appenders = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            Appender<ILoggingEvent> appender = appenders.next();
+            if (!(appender instanceof DiscardingAsyncAppender)) {
+                continue;
+            }
+
+            DiscardingAsyncAppender asyncAppender = (DiscardingAsyncAppender) appender;
+            Gauge.builder("logging.async.queue", asyncAppender, DiscardingAsyncAppender::queueSize)
+                 .tag("appender", asyncAppender.getName())
+                 .register(meterRegistry);
+            FunctionCounter.builder("logging.async.discarded", asyncAppender, DiscardingAsyncAppender::discardedEvents)
+                           .tag("appender", asyncAppender.getName())
+                           .register(meterRegistry);
+        }
+    }
+}
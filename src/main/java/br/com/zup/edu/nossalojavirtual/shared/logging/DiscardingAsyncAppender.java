@@ -0,0 +1,70 @@
+package br.com.zup.edu.nossalojavirtual.shared.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import net.logstash.logback.appender.LoggingEventAsyncDisruptorAppender;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands the log events to its appenders through a ring buffer, so the logging thread does not wait on the output.
+ *
+ * When fewer slots than the discarding threshold are left, TRACE, DEBUG and INFO events are dropped
+ * and only WARN and ERROR events still wait for a slot.
+ * The caller data is never collected, so logging does not walk the stack.
+ */
+public class DiscardingAsyncAppender extends LoggingEventAsyncDisruptorAppender {
+
+    private final AtomicLong discarded = new AtomicLong();
+    private int discardingThreshold = -1;
+
+    @Override
+    public void start() {
+        if (discardingThreshold < 0) {
+            discardingThreshold = getRingBufferSize() / 5;
+        }
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (event.getLevel().isGreaterOrEqual(Level.WARN) || remainingCapacity() >= discardingThreshold) {
+            super.append(event);
+            return;
+        }
+
+        discarded.incrementAndGet();
+    }
+
+    /**
+     * @return how many events wait in the ring buffer
+     */
+    public long queueSize() {
+        return getRingBufferSize() - remainingCapacity();
+    }
+
+    /**
+     * @return how many events were dropped because the ring buffer was almost full
+     */
+    public long discardedEvents() {
+        return discarded.get();
+    }
+
+    private long remainingCapacity() {
+        if (getDisruptor() == null) {
+            return getRingBufferSize();
+        }
+        return getDisruptor().getRingBuffer().remainingCapacity();
+    }
+
+    public int getDiscardingThreshold() {
+        return discardingThreshold;
+    }
+
+    /**
+     * @param discardingThreshold below how many free slots the events under WARN are dropped, a fifth of the ring buffer by default
+     */
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+}
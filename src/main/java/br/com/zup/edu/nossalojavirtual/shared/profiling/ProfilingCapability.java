@@ -0,0 +1,29 @@
+package br.com.zup.edu.nossalojavirtual.shared.profiling;
+
+import feign.Capability;
+import feign.Client;
+
+/**
+ * Times the outer systems calls of a profiled request.
+ *
+ * Public because Feign looks its enrich methods up by reflection
+ */
+public class ProfilingCapability implements Capability {
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> {
+            RequestProfile profile = RequestProfile.current();
+            if (profile == null) {
+                return client.execute(request, options);
+            }
+
+            long start = System.nanoTime();
+            try {
+                return client.execute(request, options);
+            } finally {
+                profile.feignCalled(System.nanoTime() - start);
+            }
+        };
+    }
+}
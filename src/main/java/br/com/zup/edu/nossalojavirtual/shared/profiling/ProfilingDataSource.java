@@ -0,0 +1,27 @@
+package br.com.zup.edu.nossalojavirtual.shared.profiling;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Hands out connections that record the statements of a profiled request, the others get the pool connections as they are
+ */
+class ProfilingDataSource extends DelegatingDataSource {
+
+    ProfilingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return ProfilingJdbc.connection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return ProfilingJdbc.connection(super.getConnection(username, password));
+    }
+}
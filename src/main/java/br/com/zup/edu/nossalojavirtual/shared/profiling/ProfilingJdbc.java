@@ -0,0 +1,72 @@
+package br.com.zup.edu.nossalojavirtual.shared.profiling;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Wraps the JDBC objects used by a profiled request, so its statements, their time and the fetched rows are recorded
+ */
+final class ProfilingJdbc implements InvocationHandler {
+
+    private static final Set<Class<?>> PROFILED_TYPES = Set.of(Statement.class, PreparedStatement.class,
+                                                               CallableStatement.class, ResultSet.class);
+
+    private final Object target;
+
+    private ProfilingJdbc(Object target) {
+        this.target = target;
+    }
+
+    /**
+     * @return the connection wrapped if the current request is profiled, the connection itself otherwise
+     */
+    static Connection connection(Connection connection) {
+        if (RequestProfile.current() == null) {
+            return connection;
+        }
+        return wrap(Connection.class, connection);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        RequestProfile profile = RequestProfile.current();
+        boolean execution = target instanceof Statement && method.getName().startsWith("execute");
+
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+
+        if (profile == null) {
+            return result;
+        }
+
+        if (execution) {
+            profile.sqlExecuted(System.nanoTime() - start);
+        } else if (target instanceof ResultSet && method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+            profile.rowFetched();
+        }
+
+        if (result != null && PROFILED_TYPES.contains(method.getReturnType())) {
+            return wrap(method.getReturnType(), result);
+        }
+        return result;
+    }
+
+    private static <T> T wrap(Class<T> type, Object target) {
+        return type.cast(Proxy.newProxyInstance(ProfilingJdbc.class.getClassLoader(),
+                                                new Class<?>[] { type },
+                                                new ProfilingJdbc(target)));
+    }
+}
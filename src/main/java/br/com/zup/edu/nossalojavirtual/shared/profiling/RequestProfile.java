@@ -0,0 +1,109 @@
+package br.com.zup.edu.nossalojavirtual.shared.profiling;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * The cost of a profiled request, recorded by the thread that serves it.
+ *
+ * When the request is not profiled there is no current profile and the recording points do nothing
+ */
+final class RequestProfile {
+
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+    private final long startedAt = System.nanoTime();
+    private long sqlStatements;
+    private long sqlNanos;
+    private long rowsFetched;
+    private long entitiesLoaded;
+    private long feignCalls;
+    private long feignNanos;
+    private long serializationStartedAt;
+    private long serializationNanos;
+    private long totalNanos;
+
+    private RequestProfile() { }
+
+    /**
+     * @return the profile of the request served by the current thread, null if it is not profiled
+     */
+    static RequestProfile current() {
+        return CURRENT.get();
+    }
+
+    static RequestProfile start() {
+        RequestProfile profile = new RequestProfile();
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    /**
+     * ends the profile of the current thread, the serialization ends with the request
+     */
+    void finish() {
+        long now = System.nanoTime();
+        if (serializationStartedAt > 0) {
+            serializationNanos = now - serializationStartedAt;
+        }
+        totalNanos = now - startedAt;
+        CURRENT.remove();
+    }
+
+    void sqlExecuted(long nanos) {
+        sqlStatements++;
+        sqlNanos += nanos;
+    }
+
+    void rowFetched() {
+        rowsFetched++;
+    }
+
+    void entityLoaded() {
+        entitiesLoaded++;
+    }
+
+    void feignCalled(long nanos) {
+        feignCalls++;
+        feignNanos += nanos;
+    }
+
+    void serializationStarted() {
+        serializationStartedAt = System.nanoTime();
+    }
+
+    /**
+     * @return the recorded costs, the times in milliseconds, until now if the profile is not finished
+     */
+    Map<String, Object> asMap() {
+        boolean finished = totalNanos > 0;
+        long now = System.nanoTime();
+        long serializationNanos = finished || serializationStartedAt == 0 ? this.serializationNanos : now - serializationStartedAt;
+        long totalNanos = finished ? this.totalNanos : now - startedAt;
+
+        Map<String, Object> costs = new LinkedHashMap<>();
+        costs.put("sql", sqlStatements);
+        costs.put("sqlTime", millis(sqlNanos));
+        costs.put("rows", rowsFetched);
+        costs.put("entities", entitiesLoaded);
+        costs.put("feign", feignCalls);
+        costs.put("feignTime", millis(feignNanos));
+        costs.put("serializationTime", millis(serializationNanos));
+        costs.put("totalTime", millis(totalNanos));
+        return costs;
+    }
+
+    /**
+     * @return the recorded costs as <code>name=value</code> pairs separated by semicolons
+     */
+    String summary() {
+        StringJoiner summary = new StringJoiner(";");
+        asMap().forEach((name, value) -> summary.add(name + "=" + value));
+        return summary.toString();
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000d) / 100d;
+    }
+}
@@ -0,0 +1,40 @@
+package br.com.zup.edu.nossalojavirtual.shared.profiling;
+
+import feign.Capability;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Plugs the {@link RequestProfile} recording points into the data source, Hibernate and the Feign clients
+ */
+@Configuration
+class RequestProfileConfig {
+
+    @Bean
+    static BeanPostProcessor profilingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ProfilingDataSource)) {
+                    return new ProfilingDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer profilingInterceptorCustomizer() {
+        return properties -> properties.put(AvailableSettings.INTERCEPTOR, new ProfilingInterceptor());
+    }
+
+    @Bean
+    Capability profilingCapability() {
+        return new ProfilingCapability();
+    }
+}
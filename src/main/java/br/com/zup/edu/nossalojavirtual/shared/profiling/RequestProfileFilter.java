@@ -0,0 +1,150 @@
+package br.com.zup.edu.nossalojavirtual.shared.profiling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static net.logstash.logback.argument.StructuredArguments.entries;
+
+/**
+ * Profiles the API requests that ask for it with the <code>X-Request-Profile: true</code> header and a sample of the others.
+ *
+ * It runs after Spring Security and only an authenticated client with the <code>profile:read</code> scope may ask for the profile,
+ * which is answered in the <code>X-Request-Profile</code> header with the costs until the body starts to be written.
+ * The body is not held, so streamed responses still stream. Every profiled request logs its whole costs
+ * as the fields of a <code>[PROFILE]</code> event, the sampled ones only log them.
+ * The requests that are not profiled go through untouched.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+class RequestProfileFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "X-Request-Profile";
+    static final String AUTHORITY = "SCOPE_profile:read";
+
+    private static final Logger LOG = LoggerFactory.getLogger(RequestProfileFilter.class);
+
+    private final boolean headerAllowed;
+    private final double sampleRate;
+
+    /**
+     * @param headerAllowed whether the clients with the <code>profile:read</code> scope may ask for the profile of their requests
+     * @param sampleRate the fraction of the requests profiled without being asked for, from 0 to 1
+     */
+    RequestProfileFilter(@Value("${profiling.header-allowed:false}") boolean headerAllowed,
+                         @Value("${profiling.sample-rate:0}") double sampleRate) {
+        this.headerAllowed = headerAllowed;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!request.getRequestURI().startsWith("/api/")) {
+            return true;
+        }
+
+        boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        return !askedFor(request) && !sampled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        RequestProfile profile = RequestProfile.start();
+        ProfileHeaderResponse profiledResponse = askedFor(request) ? new ProfileHeaderResponse(response, profile) : null;
+        try {
+            filterChain.doFilter(request, profiledResponse != null ? profiledResponse : response);
+        } finally {
+            if (profiledResponse != null) {
+                profiledResponse.writeHeader();
+            }
+            profile.finish();
+
+            LOG.info("[PROFILE] {} {} {} {}", request.getMethod(), request.getRequestURI(), response.getStatus(),
+                    entries(profile.asMap()));
+        }
+    }
+
+    private boolean askedFor(HttpServletRequest request) {
+        if (!headerAllowed || !Boolean.parseBoolean(request.getHeader(HEADER))) {
+            return false;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null
+                && authentication.isAuthenticated()
+                && authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).anyMatch(AUTHORITY::equals);
+    }
+
+    /**
+     * Writes the profile header right before the body or an error starts to be written, while the headers can still be changed
+     */
+    private static class ProfileHeaderResponse extends HttpServletResponseWrapper {
+
+        private final RequestProfile profile;
+        private boolean headerWritten;
+
+        private ProfileHeaderResponse(HttpServletResponse response, RequestProfile profile) {
+            super(response);
+            this.profile = profile;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        private void writeHeader() {
+            if (headerWritten || isCommitted()) {
+                return;
+            }
+
+            headerWritten = true;
+            setHeader(HEADER, profile.summary());
+        }
+    }
+}
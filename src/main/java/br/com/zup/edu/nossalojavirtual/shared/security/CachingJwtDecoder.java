@@ -0,0 +1,119 @@
+package br.com.zup.edu.nossalojavirtual.shared.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Validates the access tokens against the {@link RefreshingJwkSource} keys and keeps each validated token,
+ * keyed by its SHA-256, until it expires. A client sending the same token again is not validated again.
+ *
+ * Hit, miss and eviction metrics are published as <code>cache.*</code> meters with the tag <code>cache=validatedTokens</code>
+ */
+@Component
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Cache<String, Jwt> cache;
+
+    /**
+     * @param jwkSource the keys that sign the tokens
+     * @param issuerUri the issuer every token must have been issued by
+     * @param meterRegistry where the cache metrics are published
+     * @param maximumSize the maximum number of validated tokens kept
+     * @param maximumTimeToLive how long a validated token is kept at most, even if it expires later
+     */
+    CachingJwtDecoder(JWKSource<SecurityContext> jwkSource,
+                      @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuerUri,
+                      MeterRegistry meterRegistry,
+                      @Value("${security.jwt.token-cache.maximum-size:10000}") long maximumSize,
+                      @Value("${security.jwt.token-cache.maximum-time-to-live:PT5M}") Duration maximumTimeToLive) {
+
+        this.delegate = validating(jwkSource, issuerUri);
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maximumSize)
+                             .expireAfter(untilExpiration(maximumTimeToLive))
+                             .recordStats()
+                             .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "validatedTokens");
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        return cache.get(sha256(token), key -> delegate.decode(token));
+    }
+
+    /**
+     * @return the decoder that validates every token, the signature with RS256, the timestamps and the issuer
+     */
+    static JwtDecoder validating(JWKSource<SecurityContext> jwkSource, String issuerUri) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> { });
+
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(jwtProcessor);
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        return decoder;
+    }
+
+    private static Expiry<String, Jwt> untilExpiration(Duration maximumTimeToLive) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+                Instant expiresAt = jwt.getExpiresAt();
+                if (expiresAt == null) {
+                    return maximumTimeToLive.toNanos();
+                }
+
+                Duration remaining = Duration.between(Instant.now(), expiresAt);
+                if (remaining.isNegative()) {
+                    return 0;
+                }
+
+                return remaining.compareTo(maximumTimeToLive) < 0 ? remaining.toNanos() : maximumTimeToLive.toNanos();
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, jwt, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return String.format("%064x", new BigInteger(1, digest.digest(token.getBytes(US_ASCII))));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
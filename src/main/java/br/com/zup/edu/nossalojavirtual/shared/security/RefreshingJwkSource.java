@@ -0,0 +1,194 @@
+package br.com.zup.edu.nossalojavirtual.shared.security;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The public keys that sign the access tokens. They are loaded in the background when the application starts and
+ * reloaded on a schedule, so validating a token waits for the authorization server only when its key is unknown.
+ *
+ * The location is any Spring resource: the JWK set URI of the authorization server, a local file or a classpath stand-in.
+ * Every set loaded from it is kept in the fallback file, which is read when the location can not be and there are no keys.
+ * While there are no keys at all the location is retried with exponential backoff instead of waiting for the next refresh.
+ * A token signed by an unknown key, one rotated in after the last refresh, makes the keys be read again, at most once
+ * in every refetch interval so that made up key ids can not flood the authorization server.
+ */
+@Component
+public class RefreshingJwkSource implements JWKSource<SecurityContext>, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RefreshingJwkSource.class);
+
+    private final Resource location;
+    private final Path fallbackFile;
+    private final int timeout;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final long minRefetchIntervalNanos;
+    private final ScheduledExecutorService retries;
+
+    private volatile JWKSet jwkSet = new JWKSet();
+
+    private long lastRefetch;
+
+    /**
+     * @param location where the JWK set is read from
+     * @param fallbackFile where the last loaded JWK set is kept
+     * @param timeout how long connecting to and reading from the location may take
+     * @param retryBackoff how long to wait before the first retry while there are no keys
+     * @param maxRetryBackoff the longest wait between two retries
+     * @param minRefetchInterval the shortest wait between two reads caused by tokens signed by unknown keys
+     */
+    RefreshingJwkSource(@Value("${security.jwt.jwk-set-location}") Resource location,
+                        @Value("${security.jwt.jwk-set-fallback-file:${java.io.tmpdir}/nossa-loja-virtual/jwks.json}") Path fallbackFile,
+                        @Value("${security.jwt.jwk-set-timeout:2s}") Duration timeout,
+                        @Value("${security.jwt.jwk-set-retry-backoff:1s}") Duration retryBackoff,
+                        @Value("${security.jwt.jwk-set-max-retry-backoff:1m}") Duration maxRetryBackoff,
+                        @Value("${security.jwt.jwk-set-min-refetch-interval:30s}") Duration minRefetchInterval) {
+        this.location = location;
+        this.fallbackFile = fallbackFile;
+        this.timeout = (int) timeout.toMillis();
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.minRefetchIntervalNanos = minRefetchInterval.toNanos();
+        this.lastRefetch = System.nanoTime() - minRefetchIntervalNanos;
+        this.retries = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jwk-set-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        retries.execute(() -> {
+            reload();
+            retryWhileEmpty(retryBackoff);
+        });
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+        List<JWK> keys = jwkSelector.select(jwkSet);
+        if (!keys.isEmpty()) {
+            return keys;
+        }
+
+        refetch();
+        return jwkSelector.select(jwkSet);
+    }
+
+    /**
+     * When the location can not be read the keys loaded before are kept, a key rotated in is used after the next refresh
+     */
+    @Scheduled(initialDelayString = "${security.jwt.jwk-set-refresh-interval:PT5M}",
+               fixedDelayString = "${security.jwt.jwk-set-refresh-interval:PT5M}")
+    public void refresh() {
+        load();
+    }
+
+    /**
+     * @return true if there are keys to validate the tokens with
+     */
+    public boolean hasKeys() {
+        return !jwkSet.getKeys().isEmpty();
+    }
+
+    @Override
+    public void destroy() {
+        retries.shutdownNow();
+    }
+
+    /**
+     * A caller that waited for a concurrent read uses the keys it loaded instead of reading them again
+     */
+    private synchronized void refetch() {
+        long now = System.nanoTime();
+        if (now - lastRefetch < minRefetchIntervalNanos) {
+            return;
+        }
+
+        lastRefetch = now;
+        LOG.info("[SECURITY] [JWK] token signed by an unknown key, reading the keys from {} again", location);
+        reload();
+    }
+
+    private synchronized void reload() {
+        if (!load() && !hasKeys()) {
+            loadFallback();
+        }
+    }
+
+    private synchronized boolean load() {
+        try {
+            URLConnection connection = location.getURL().openConnection();
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+
+            try (InputStream content = connection.getInputStream()) {
+                this.jwkSet = JWKSet.load(content).toPublicJWKSet();
+            }
+
+            LOG.info("[SECURITY] [JWK] {} keys loaded from {}", jwkSet.getKeys().size(), location);
+        } catch (IOException | ParseException e) {
+            LOG.warn("[SECURITY] [JWK] keys could not be loaded from {}, keeping {} keys: {}",
+                    location, jwkSet.getKeys().size(), e.getMessage());
+            return false;
+        }
+
+        try {
+            Files.createDirectories(fallbackFile.toAbsolutePath().getParent());
+            Files.writeString(fallbackFile, jwkSet.toString(), UTF_8);
+        } catch (IOException e) {
+            LOG.warn("[SECURITY] [JWK] keys could not be kept in {}: {}", fallbackFile, e.getMessage());
+        }
+        return true;
+    }
+
+    private synchronized void loadFallback() {
+        if (!Files.exists(fallbackFile)) {
+            return;
+        }
+
+        try {
+            this.jwkSet = JWKSet.parse(Files.readString(fallbackFile, UTF_8)).toPublicJWKSet();
+            LOG.info("[SECURITY] [JWK] {} keys loaded from the fallback file {}", jwkSet.getKeys().size(), fallbackFile);
+        } catch (IOException | ParseException e) {
+            LOG.warn("[SECURITY] [JWK] keys could not be loaded from the fallback file {}: {}", fallbackFile, e.getMessage());
+        }
+    }
+
+    private void retryWhileEmpty(Duration backoff) {
+        if (hasKeys() || retries.isShutdown()) {
+            return;
+        }
+
+        LOG.warn("[SECURITY] [JWK] no keys to validate the tokens with, retrying {} in {}", location, backoff);
+        retries.schedule(() -> {
+            if (!load()) {
+                Duration next = backoff.multipliedBy(2);
+                retryWhileEmpty(next.compareTo(maxRetryBackoff) < 0 ? next : maxRetryBackoff);
+            }
+        }, backoff.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,277 @@
+package br.com.zup.edu.nossalojavirtual.shared.validators;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A Bloom filter of the keys registered in a key space, loaded when the application is ready and updated by
+ * {@link ExistenceFilterListener} when an entity is persisted. A key the filter does not contain is not registered,
+ * so checking it does not query the database. A key it contains is still checked by the query.
+ *
+ * The listener only sees the entities persisted by this instance, so the registered keys are loaded again
+ * every reload interval. With more than one instance, a key registered by another one is reported as not registered
+ * until the next reload: the filters are meant for a single instance, and the uniqueness they check must still be
+ * guaranteed by a unique constraint.
+ *
+ * Removed keys are not cleared, they only make the filter answer "maybe" more often.
+ *
+ * The estimated false positive probability, the approximate number of keys and the memory used are published as
+ * <code>existence.filter.*</code> gauges, and the checks as the <code>existence.filter.checks</code> counter,
+ * all tagged with the filter name
+ *
+ * @param <E> the entity whose keys are registered
+ * @param <K> the key type
+ */
+public abstract class ExistenceFilter<E, K> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExistenceFilter.class);
+
+    private static final int LOAD_PAGE_SIZE = 1_000;
+
+    private final String name;
+    private final Class<E> entityType;
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final AtomicLong bitsSet = new AtomicLong();
+
+    private final Counter negatives;
+    private final Counter positives;
+    private final Counter falsePositives;
+
+    private volatile boolean loaded = false;
+
+    /**
+     * @param name the key space name, used as the <code>filter</code> tag
+     * @param expectedInsertions how many keys the filter is sized for
+     * @param falsePositiveProbability the false positive probability when the filter holds the expected keys
+     */
+    protected ExistenceFilter(String name,
+                              Class<E> entityType,
+                              MeterRegistry meterRegistry,
+                              long expectedInsertions,
+                              double falsePositiveProbability) {
+        this.name = name;
+        this.entityType = entityType;
+
+        long bitSize = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((bitSize + 63) / 64));
+        this.bitSize = bits.length() * 64L;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) this.bitSize / expectedInsertions * Math.log(2)));
+
+        Gauge.builder("existence.filter.false.positive.probability", this, ExistenceFilter::falsePositiveProbability)
+             .tag("filter", name)
+             .register(meterRegistry);
+        Gauge.builder("existence.filter.keys", this, ExistenceFilter::approximateKeys)
+             .tag("filter", name)
+             .register(meterRegistry);
+        Gauge.builder("existence.filter.size", this, filter -> filter.bits.length() * 8d)
+             .tag("filter", name)
+             .baseUnit("bytes")
+             .register(meterRegistry);
+
+        this.negatives = checks(meterRegistry, "negative");
+        this.positives = checks(meterRegistry, "positive");
+        this.falsePositives = checks(meterRegistry, "false-positive");
+    }
+
+    /**
+     * @return the key of a registered entity
+     */
+    protected abstract K keyOf(E entity);
+
+    /**
+     * @return a page of the registered keys
+     */
+    protected abstract Slice<K> registeredKeys(Pageable pageable);
+
+    /**
+     * Until the keys are loaded every check queries the database. Loading them again adds the keys registered
+     * behind the listener back, the keys already in the filter are kept
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${validators.existence-filter.reload-interval:PT10M}",
+               fixedDelayString = "${validators.existence-filter.reload-interval:PT10M}")
+    public synchronized void load() {
+        long start = System.currentTimeMillis();
+
+        long keys = 0;
+        Slice<K> page = registeredKeys(PageRequest.of(0, LOAD_PAGE_SIZE));
+        while (true) {
+            page.forEach(this::put);
+            keys += page.getNumberOfElements();
+
+            if (!page.hasNext()) {
+                break;
+            }
+            page = registeredKeys(page.nextPageable());
+        }
+
+        this.loaded = true;
+        LOG.info("[VALIDATORS] [EXISTENCE FILTER] {} loaded with {} keys in {} ms",
+                name, keys, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * @param key the key to check
+     * @param query asks the database whether the key is registered
+     * @return true if the key is registered
+     */
+    public boolean exists(K key, Function<K, Boolean> query) {
+        if (key != null && loaded && !mightContain(key)) {
+            negatives.increment();
+            return false;
+        }
+
+        boolean exists = query.apply(key);
+        count(exists);
+        return exists;
+    }
+
+    /**
+     * @return the query, skipped for the keys that are not registered
+     */
+    public Function<K, Boolean> guard(Function<K, Boolean> query) {
+        return key -> exists(key, query);
+    }
+
+    /**
+     * @return the finder, skipped for the keys that are not registered
+     */
+    public <O> Function<K, Optional<O>> guardFinder(Function<K, Optional<O>> finder) {
+        return key -> {
+            if (key != null && loaded && !mightContain(key)) {
+                negatives.increment();
+                return Optional.empty();
+            }
+
+            Optional<O> found = finder.apply(key);
+            count(found.isPresent());
+            return found;
+        };
+    }
+
+    /**
+     * @param entity a persisted entity of any type, ignored when it is not the filter entity
+     */
+    void registered(Object entity) {
+        if (entityType.isInstance(entity)) {
+            K key = keyOf(entityType.cast(entity));
+            if (key != null) {
+                put(key);
+            }
+        }
+    }
+
+    boolean mightContain(K key) {
+        long hash = hash(key);
+        long step = step(hash);
+
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Math.floorMod(hash + i * step, bitSize);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    void put(K key) {
+        long hash = hash(key);
+        long step = step(hash);
+
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Math.floorMod(hash + i * step, bitSize);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+
+            if ((current & mask) == 0) {
+                bitsSet.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return the probability of a key that is not registered being reported as maybe registered, given the bits set
+     */
+    double falsePositiveProbability() {
+        return Math.pow((double) bitsSet.get() / bitSize, hashFunctions);
+    }
+
+    /**
+     * @return the number of keys put in the filter, estimated from the bits set
+     */
+    double approximateKeys() {
+        return -((double) bitSize / hashFunctions) * Math.log1p(-(double) bitsSet.get() / bitSize);
+    }
+
+    private void count(boolean exists) {
+        if (!loaded) {
+            return;
+        }
+
+        if (exists) {
+            positives.increment();
+        } else {
+            falsePositives.increment();
+        }
+    }
+
+    private Counter checks(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("existence.filter.checks")
+                      .tag("filter", name)
+                      .tag("result", result)
+                      .register(meterRegistry);
+    }
+
+    /**
+     * FNV-1a of the key text, mixed with the splitmix64 finalizer
+     */
+    private static long hash(Object key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.toString().getBytes(UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+
+        return mix(hash);
+    }
+
+    /**
+     * the second hash of the double hashing, odd so it visits every bit
+     */
+    private static long step(long hash) {
+        return mix(hash + 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
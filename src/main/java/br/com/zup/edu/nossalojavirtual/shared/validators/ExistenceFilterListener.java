@@ -0,0 +1,27 @@
+package br.com.zup.edu.nossalojavirtual.shared.validators;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PrePersist;
+
+/**
+ * Entity listener of the entities whose keys are kept by an {@link ExistenceFilter}, created by Spring when Hibernate boots.
+ *
+ * The key is registered when the entity is persisted, before it is flushed or the transaction commits, so a check never
+ * misses a key that a query would find. Keys generated on insert, like sequence ids, are only known after it
+ */
+public class ExistenceFilterListener {
+
+    private final ObjectProvider<ExistenceFilter<?, ?>> existenceFilters;
+
+    ExistenceFilterListener(ObjectProvider<ExistenceFilter<?, ?>> existenceFilters) {
+        this.existenceFilters = existenceFilters;
+    }
+
+    @PrePersist
+    @PostPersist
+    void registered(Object entity) {
+        existenceFilters.forEach(filter -> filter.registered(entity));
+    }
+}
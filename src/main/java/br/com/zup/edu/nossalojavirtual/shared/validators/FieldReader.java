@@ -0,0 +1,58 @@
+package br.com.zup.edu.nossalojavirtual.shared.validators;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Reads a declared field of the validated objects through a method handle.
+ *
+ * The validators are created for every request by the controllers binders, so the readers are kept by class and field
+ */
+final class FieldReader {
+
+    private static final ClassValue<Map<String, FieldReader>> READERS = new ClassValue<>() {
+        @Override
+        protected Map<String, FieldReader> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final MethodHandle getter;
+
+    private FieldReader(MethodHandle getter) {
+        this.getter = getter;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the field does not exist or it is inaccessible
+     */
+    static FieldReader of(Class<?> type, String field) {
+        return READERS.get(type).computeIfAbsent(field, name -> new FieldReader(getter(type, name)));
+    }
+
+    Object read(Object target) {
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (Throwable e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static MethodHandle getter(Class<?> type, String name) {
+        try {
+            Field field = type.getDeclaredField(name);
+            field.setAccessible(true);
+
+            return MethodHandles.lookup()
+                                .unreflectGetter(field)
+                                .asType(methodType(Object.class, Object.class));
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -6,7 +6,6 @@ import org.springframework.validation.Validator;
 
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
-import java.lang.reflect.Field;
 import java.util.function.Function;
 
 import static java.lang.String.format;
@@ -25,6 +24,7 @@ public class ObjectIsRegisteredValidator<T, P> implements Validator {
     private final String errorCode;
     private final Class<? extends T> classToValidate;
     private final Function<P, Boolean> existsFunction;
+    private final FieldReader fieldReader;
 
     /**
      *
@@ -33,7 +33,7 @@ public class ObjectIsRegisteredValidator<T, P> implements Validator {
      * @param classToValidate the class type which will be validated
      * @param existsFunction a function that receives the argument #P and returns a boolean
      *
-     * @throws IllegalArgumentException if field has no text
+     * @throws IllegalArgumentException if field has no text, does not exist or it is inaccessible
      * @throws NullPointerException if classToValidate or existsFunction is null
      */
     public ObjectIsRegisteredValidator(@NotEmpty String field,
@@ -49,6 +49,7 @@ public class ObjectIsRegisteredValidator<T, P> implements Validator {
         this.errorCode = errorCode;
         this.classToValidate = classToValidate;
         this.existsFunction = existsFunction;
+        this.fieldReader = FieldReader.of(classToValidate, field);
 
     }
 
@@ -60,21 +61,15 @@ public class ObjectIsRegisteredValidator<T, P> implements Validator {
     @SuppressWarnings("unchecked")
     @Override
     public void validate(Object target, Errors errors) {
-        try {
-            Field fieldToValidate = classToValidate.getDeclaredField(this.field);
-            fieldToValidate.setAccessible(true);
-            Object fieldValue = fieldToValidate.get(target);
+        Object fieldValue = fieldReader.read(target);
 
-            if(fieldValue == null) {
-                return;
-            }
+        if(fieldValue == null) {
+            return;
+        }
 
-            Boolean hasObject = existsFunction.apply((P) fieldValue);
-            if (!hasObject) {
-                errors.rejectValue(field, errorCode, format("Category %s is not registered", field));
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            throw new IllegalArgumentException(e);
+        Boolean hasObject = existsFunction.apply((P) fieldValue);
+        if (!hasObject) {
+            errors.rejectValue(field, errorCode, format("Category %s is not registered", field));
         }
     }
 }
@@ -0,0 +1,33 @@
+package br.com.zup.edu.nossalojavirtual.shared.validators;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * The objects found while a request is validated, kept until the request ends so converting the request
+ * does not look them up again.
+ *
+ * The objects are detached once the lookup transaction ends, they are meant to be referenced by new entities only
+ */
+@Component
+@RequestScope
+public class RegisteredObjects {
+
+    private final Map<Object, Optional<?>> found = new HashMap<>();
+
+    /**
+     * @param type the type of the objects found
+     * @param finder finds an object by its id
+     * @return a finder that looks each id up once per request, the absent ones included
+     */
+    @SuppressWarnings("unchecked")
+    public <I, O> Function<I, Optional<O>> finder(Class<O> type, Function<I, Optional<O>> finder) {
+        return id -> (Optional<O>) found.computeIfAbsent(Arrays.asList(type, id), key -> finder.apply(id));
+    }
+}
@@ -6,7 +6,6 @@ import org.springframework.validation.Validator;
 
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
-import java.lang.reflect.Field;
 import java.util.function.Function;
 
 import static java.lang.String.format;
@@ -24,6 +23,7 @@ public class UniqueFieldValidator<T, P> implements Validator {
     private final String errorCode;
     private final Class<? extends T> classToValidate;
     private final Function<P, Boolean> existsFunction;
+    private final FieldReader fieldReader;
 
     /**
      *
@@ -32,7 +32,7 @@ public class UniqueFieldValidator<T, P> implements Validator {
      * @param classToValidate the class type which will be validated
      * @param existsFunction a function that receives the argument #P and returns a boolean
      *
-     * @throws IllegalArgumentException if field has no text
+     * @throws IllegalArgumentException if field has no text, does not exist or it is inaccessible
      * @throws NullPointerException if classToValidate or existsFunction is null
      */
     public UniqueFieldValidator(@NotEmpty String field,
@@ -48,6 +48,7 @@ public class UniqueFieldValidator<T, P> implements Validator {
         this.errorCode = errorCode;
         this.classToValidate = classToValidate;
         this.existsFunction = existsFunction;
+        this.fieldReader = FieldReader.of(classToValidate, field);
     }
 
     @Override
@@ -59,23 +60,15 @@ public class UniqueFieldValidator<T, P> implements Validator {
      *
      * @param target the object which will be validated
      * @param errors the stored errors
-     *
-     * @throws IllegalArgumentException if field does not exists or it is inaccessible
      */
     @SuppressWarnings("unchecked")
     @Override
     public void validate(Object target, Errors errors) {
-        try {
-            Field fieldToValidate = classToValidate.getDeclaredField(this.field);
-            fieldToValidate.setAccessible(true);
-            Object fieldValue = fieldToValidate.get(target);
+        Object fieldValue = fieldReader.read(target);
 
-            Boolean hasObject = existsFunction.apply((P) fieldValue);
-            if (hasObject) {
-                errors.rejectValue(field, errorCode, format("%s is already registered", field));
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            throw new IllegalArgumentException(e);
+        Boolean hasObject = existsFunction.apply((P) fieldValue);
+        if (hasObject) {
+            errors.rejectValue(field, errorCode, format("%s is already registered", field));
         }
     }
 }
@@ -0,0 +1,95 @@
+package br.com.zup.edu.nossalojavirtual.users;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Resolves the user of a JWT by its <code>email</code> claim, keeping the registered users in a bounded in-process cache
+ * so the write endpoints do not read the user on every request.
+ *
+ * Unregistered emails are not cached. Hit, miss and eviction metrics are published as <code>cache.*</code> meters
+ * with the tag <code>cache=userReferences</code>
+ */
+@Component
+public class AuthenticatedUserResolver {
+
+    private final Cache<String, UserReference> cache;
+    private final UserRepository userRepository;
+
+    /**
+     * @param maximumSize the maximum number of users kept
+     * @param timeToLive how long a user is kept after it was loaded
+     */
+    AuthenticatedUserResolver(UserRepository userRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${users.reference-cache.maximum-size:10000}") long maximumSize,
+                              @Value("${users.reference-cache.time-to-live:10m}") Duration timeToLive) {
+        this.userRepository = userRepository;
+
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maximumSize)
+                             .expireAfterWrite(timeToLive)
+                             .recordStats()
+                             .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userReferences");
+    }
+
+    /**
+     * @param jwt the token of the authenticated user
+     * @return the user with the token email, if it is registered
+     */
+    public Optional<UserReference> resolve(Jwt jwt) {
+        String email = jwt.getClaim("email");
+        if (email == null) {
+            return Optional.empty();
+        }
+
+        UserReference cached = cache.getIfPresent(email);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        // not loaded inside the cache computation, the query may flush a new user whose listener invalidates this email
+        Optional<UserReference> found = userRepository.findReferenceByEmail(email);
+        found.ifPresent(reference -> cache.put(email, reference));
+        return found;
+    }
+
+    /**
+     * @param jwt the token of the authenticated user
+     * @return a reference to the user with the token email, if it is registered, to be set on associations without loading it
+     */
+    public Optional<User> resolveUser(Jwt jwt) {
+        return resolve(jwt).map(reference -> userRepository.getReferenceById(reference.getId()));
+    }
+
+    /**
+     * Invalidating only now would let a concurrent request cache the state before the commit again,
+     * so when there is a transaction running the invalidation is repeated after it commits
+     *
+     * @param email the user that was registered or removed
+     */
+    void invalidate(String email) {
+        cache.invalidate(email);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(email);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package br.com.zup.edu.nossalojavirtual.users;
+
+import br.com.zup.edu.nossalojavirtual.shared.validators.ExistenceFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+/**
+ * The emails of the registered users, a new user with a free email is registered without checking it by a query
+ */
+@Component
+class KnownUserEmails extends ExistenceFilter<User, String> {
+
+    private final UserRepository userRepository;
+
+    KnownUserEmails(UserRepository userRepository,
+                    MeterRegistry meterRegistry,
+                    @Value("${validators.existence-filter.expected-insertions:1000000}") long expectedInsertions,
+                    @Value("${validators.existence-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        super("userEmails", User.class, meterRegistry, expectedInsertions, falsePositiveProbability);
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    protected String keyOf(User user) {
+        return user.getUsername();
+    }
+
+    @Override
+    protected Slice<String> registeredKeys(Pageable pageable) {
+        return userRepository.findAllEmails(pageable);
+    }
+}
@@ -1,24 +1,25 @@
 package br.com.zup.edu.nossalojavirtual.users;
 
-import br.com.zup.edu.nossalojavirtual.products.Product;
+import br.com.zup.edu.nossalojavirtual.shared.validators.ExistenceFilterListener;
 import org.hibernate.annotations.CreationTimestamp;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
 import java.time.LocalDateTime;
 import java.util.Objects;
-import java.util.Set;
 import java.util.StringJoiner;
 
 import static java.time.LocalDateTime.now;
-import static javax.persistence.GenerationType.IDENTITY;
+import static javax.persistence.GenerationType.SEQUENCE;
 
 @Table(name = "users")
 @Entity
+@EntityListeners({ UserReferenceInvalidator.class, ExistenceFilterListener.class })
 public class User {
 
     @Id
-    @GeneratedValue(strategy = IDENTITY)
+    @GeneratedValue(strategy = SEQUENCE, generator = "users_sequence")
+    @SequenceGenerator(name = "users_sequence", sequenceName = "users_sequence", allocationSize = 50)
     @Column(name = "user_id")
     private Long id;
 
@@ -27,9 +28,6 @@ public class User {
     @Column(name = "user_email", unique = true)
     private String email;
 
-    @OneToMany(mappedBy = "user", fetch = FetchType.EAGER)
-    private Set<Product> products;
-
     @PastOrPresent
     @CreationTimestamp
     private LocalDateTime createdAt = now();
@@ -42,7 +40,7 @@ public class User {
      * @deprecated frameworks eyes only
      */
     @Deprecated
-    private User() { }
+    protected User() { }
 
     public Long getId() {
         return id;
@@ -52,10 +50,6 @@ public class User {
         return email;
     }
 
-    public Set<Product> getProducts() {
-        return products;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -4,9 +4,12 @@ package br.com.zup.edu.nossalojavirtual.users;
 import br.com.zup.edu.nossalojavirtual.shared.validators.UniqueFieldValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
 import java.net.URI;
@@ -20,9 +23,12 @@ class UserController {
     Logger logger = LoggerFactory.getLogger(UserController.class);
 
     private final UserRepository userRepository;
+    private final KnownUserEmails knownUserEmails;
 
-    UserController(UserRepository userRepository) {
+    UserController(UserRepository userRepository,
+                   KnownUserEmails knownUserEmails) {
         this.userRepository = userRepository;
+        this.knownUserEmails = knownUserEmails;
     }
 
     @PostMapping
@@ -32,7 +38,13 @@ class UserController {
 
         var user = new User(newUser.getLogin());
 
-        userRepository.save(user);
+        try {
+            // the email filter may not know an email registered by another instance yet, the unique constraint does
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("user {} already registered", newUser.getLogin());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "login is already registered");
+        }
 
         logger.info("user {} successfully registered", newUser.getLogin());
 
@@ -47,7 +59,7 @@ class UserController {
                              new UniqueFieldValidator<NewUserRequest, String>("login",
                                      "user.login.alreadyRegistered",
                                      NewUserRequest.class,
-                                     userRepository::existsByEmail));
+                                     knownUserEmails.guard(userRepository::existsByEmail)));
     }
 
 }
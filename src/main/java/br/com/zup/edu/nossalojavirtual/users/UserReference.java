@@ -0,0 +1,33 @@
+package br.com.zup.edu.nossalojavirtual.users;
+
+import java.util.StringJoiner;
+
+/**
+ * The identity of a registered user, small enough to be kept in memory by {@link AuthenticatedUserResolver}
+ */
+public final class UserReference {
+
+    private final Long id;
+    private final String email;
+
+    public UserReference(Long id, String email) {
+        this.id = id;
+        this.email = email;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", UserReference.class.getSimpleName() + "[", "]")
+                .add("id=" + id)
+                .add("email='" + email + "'")
+                .toString();
+    }
+}
@@ -0,0 +1,26 @@
+package br.com.zup.edu.nossalojavirtual.users;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+
+/**
+ * Entity listener of {@link User}, created by Spring when Hibernate boots.
+ *
+ * The resolver is looked up lazily, it depends on the repositories that are only available after Hibernate
+ */
+class UserReferenceInvalidator {
+
+    private final ObjectProvider<AuthenticatedUserResolver> authenticatedUserResolver;
+
+    UserReferenceInvalidator(ObjectProvider<AuthenticatedUserResolver> authenticatedUserResolver) {
+        this.authenticatedUserResolver = authenticatedUserResolver;
+    }
+
+    @PostPersist
+    @PostRemove
+    void invalidate(User user) {
+        authenticatedUserResolver.ifAvailable(resolver -> resolver.invalidate(user.getUsername()));
+    }
+}
@@ -1,7 +1,11 @@
 package br.com.zup.edu.nossalojavirtual.users;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
@@ -13,5 +17,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    @Query("select new br.com.zup.edu.nossalojavirtual.users.UserReference(u.id, u.email) from User u where u.email = :email")
+    Optional<UserReference> findReferenceByEmail(@Param("email") String email);
+
     Optional<User> findById(Long id);
+
+    @Query("select u.email from User u order by u.id")
+    Slice<String> findAllEmails(Pageable pageable);
 }
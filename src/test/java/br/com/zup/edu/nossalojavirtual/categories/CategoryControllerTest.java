@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -41,6 +42,9 @@ class CategoryControllerTest {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private Category category;
 
     private NewCategoryRequest newCategory;
@@ -169,5 +173,24 @@ class CategoryControllerTest {
                         MockMvcResultMatchers.status().isForbidden());
     }
 
+    @Test
+    @DisplayName("must not register a category whose name was registered by another instance")
+    void test6() throws Exception {
+
+        jdbcTemplate.update("insert into categories (category_id, category_name) values (?, ?)", 999_999L, "Monitores");
 
+        String payload = mapper.writeValueAsString(new NewCategoryRequest("Monitores", null));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post("/api/categories")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(payload)
+                .with(jwt()
+                        .authorities(new SimpleGrantedAuthority("SCOPE_categories:write")))
+                .header("Accept-Language", "pt-br");
+
+        mockMvc.perform(request)
+                .andExpect(status().isBadRequest());
+
+        assertEquals(1, categoryRepository.findAll().stream().filter(category -> category.getName().equals("Monitores")).count());
+    }
 }
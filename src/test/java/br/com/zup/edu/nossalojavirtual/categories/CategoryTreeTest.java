@@ -0,0 +1,102 @@
+package br.com.zup.edu.nossalojavirtual.categories;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CategoryTreeTest {
+
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+
+    private final List<Category> categories = new ArrayList<>();
+
+    private CategoryTree categoryTree;
+
+    private Category tecnologia;
+    private Category celulares;
+
+    @BeforeEach
+    void setUp() {
+        when(categoryRepository.findAllWithSuperCategory()).thenAnswer(invocation -> List.copyOf(categories));
+
+        tecnologia = category(1L, "Tecnologia", null);
+        celulares = category(2L, "Celulares", tecnologia);
+        categories.addAll(List.of(tecnologia, celulares));
+
+        categoryTree = new CategoryTree(categoryRepository);
+        categoryTree.refresh();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("must know the path of a category from its mother category")
+    void test1() {
+        assertEquals(List.of("Tecnologia", "Celulares"), categoryTree.hierarchyNamesOf(2L));
+        assertArrayEquals(new long[] { 1L, 2L }, categoryTree.ancestorsOf(2L));
+        assertEquals("Celulares", categoryTree.nameOf(2L));
+    }
+
+    @Test
+    @DisplayName("must not load the tree again for a category that is not in the database")
+    void test2() {
+        when(categoryRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(IllegalArgumentException.class, () -> categoryTree.nameOf(99L));
+
+        verify(categoryRepository, times(1)).findAllWithSuperCategory();
+    }
+
+    @Test
+    @DisplayName("must load the tree again for a category registered by another instance")
+    void test3() {
+        categories.add(category(3L, "Smartphones", celulares));
+        when(categoryRepository.existsById(3L)).thenReturn(true);
+
+        assertEquals(List.of("Tecnologia", "Celulares", "Smartphones"), categoryTree.hierarchyNamesOf(3L));
+
+        verify(categoryRepository, times(2)).findAllWithSuperCategory();
+    }
+
+    @Test
+    @DisplayName("must add a category registered in a transaction only after it commits")
+    void test4() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        categoryTree.register(category(3L, "Smartphones", celulares));
+
+        assertThrows(IllegalArgumentException.class, () -> categoryTree.nameOf(3L));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertArrayEquals(new long[] { 1L, 2L, 3L }, categoryTree.ancestorsOf(3L));
+        verify(categoryRepository, times(1)).findAllWithSuperCategory();
+    }
+
+    private Category category(Long id, String name, Category superCategory) {
+        Category category = mock(Category.class);
+        when(category.getId()).thenReturn(id);
+        when(category.getName()).thenReturn(name);
+        when(category.getSuperCategory()).thenReturn(superCategory);
+        return category;
+    }
+}
@@ -0,0 +1,195 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.categories.Category;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryClosureRepository;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import br.com.zup.edu.nossalojavirtual.categories.CategorySubtrees;
+import br.com.zup.edu.nossalojavirtual.users.User;
+import br.com.zup.edu.nossalojavirtual.users.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc(printOnlyOnFailure = false)
+@ActiveProfiles("test")
+class CategoryProductsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryClosureRepository categoryClosureRepository;
+
+    @Autowired
+    private CategorySubtrees categorySubtrees;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Category> categories = new ArrayList<>();
+
+    private User seller;
+
+    private Category technology;
+
+    private Category phones;
+
+    private Category smartphones;
+
+    @BeforeEach
+    void setUp() {
+        this.seller = userRepository.save(new User("seller@nossalojavirtual.com"));
+
+        this.technology = categoryRepository.save(new Category("Tecnologia"));
+        this.phones = categoryRepository.save(new Category("Celulares", technology));
+        this.smartphones = categoryRepository.save(new Category("Smartphones", phones));
+        Category computers = categoryRepository.save(new Category("Computadores", technology));
+        categories.addAll(List.of(technology, phones, smartphones, computers));
+        categorySubtrees.rebuild();
+
+        productRepository.save(newProduct("Galaxy", smartphones, "1999.90"));
+        productRepository.save(newProduct("Nokia", phones, "199.90"));
+        productRepository.save(newProduct("Notebook", computers, "4999.90"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryClosureRepository.deleteAll();
+
+        Collections.reverse(categories);
+        categoryRepository.deleteAll(categories);
+    }
+
+    @Test
+    @DisplayName("must list the products of a category and of every category below it")
+    void test1() throws Exception {
+
+        mockMvc.perform(listRequest(this.technology).param("sort", "price"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Nokia", "Galaxy", "Notebook")))
+                .andExpect(jsonPath("$.hasNext").value(false));
+
+        mockMvc.perform(listRequest(this.phones).param("sort", "-price"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Galaxy", "Nokia")));
+
+        mockMvc.perform(listRequest(this.smartphones))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Galaxy")));
+    }
+
+    @Test
+    @DisplayName("must page through the products of a category, newest first")
+    void test2() throws Exception {
+
+        mockMvc.perform(listRequest(this.technology).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Notebook", "Nokia")))
+                .andExpect(jsonPath("$.hasNext").value(true));
+
+        mockMvc.perform(listRequest(this.technology).param("size", "2").param("page", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Galaxy")))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    @DisplayName("must list the products of a category registered below an existing one")
+    void test3() throws Exception {
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post("/api/categories")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Android\", \"superCategory\": " + this.smartphones.getId() + "}")
+                .with(jwt()
+                        .authorities(new SimpleGrantedAuthority("SCOPE_categories:write")));
+
+        mockMvc.perform(request)
+                .andExpect(status().isCreated());
+
+        Category android = categoryRepository.findAll()
+                                             .stream()
+                                             .filter(category -> category.getName().equals("Android"))
+                                             .findFirst()
+                                             .orElseThrow();
+        categories.add(android);
+
+        assertEquals(4, categoryClosureRepository.findAll()
+                                                 .stream()
+                                                 .filter(closure -> closure.getDescendantId().equals(android.getId()))
+                                                 .count());
+
+        productRepository.save(newProduct("Pixel", android, "2999.90"));
+
+        mockMvc.perform(listRequest(this.phones).param("sort", "-price"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Pixel", "Galaxy", "Nokia")));
+    }
+
+    @Test
+    @DisplayName("must not list the products of a category that does not exist or with an invalid sort")
+    void test4() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/categories/{id}/products", Long.MAX_VALUE)
+                        .with(jwt().authorities(new SimpleGrantedAuthority("SCOPE_product:read"))))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(listRequest(this.technology).param("sort", "name"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("should not list the products of a category when the token does not have the proper scope")
+    void test5() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/categories/{id}/products", this.technology.getId())
+                        .with(jwt()))
+                .andExpect(status().isForbidden());
+    }
+
+    private MockHttpServletRequestBuilder listRequest(Category category) {
+        return MockMvcRequestBuilders.get("/api/categories/{id}/products", category.getId())
+                .with(jwt()
+                        .authorities(new SimpleGrantedAuthority("SCOPE_product:read")));
+    }
+
+    private Product newProduct(String name, Category category, String price) {
+        PreProduct preProduct = new PreProduct(this.seller, category, name, new BigDecimal(price), 10, "descrição");
+
+        return new Product(preProduct,
+                List.of(new Photo("www.foto1.com")),
+                Set.of(new Characteristic("cor", "preto"),
+                        new Characteristic("peso", "1kg"),
+                        new Characteristic("garantia", "1 ano")));
+    }
+}
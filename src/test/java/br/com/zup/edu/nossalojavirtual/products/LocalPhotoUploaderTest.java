@@ -0,0 +1,87 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class LocalPhotoUploaderTest {
+
+    private static final String BASE_URL = "https://s3.nosso-mercado-livre.amazon/products";
+
+    @TempDir
+    Path storageDirectory;
+
+    private LocalPhotoUploader photoUploader;
+
+    private PreProduct preProduct;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.photoUploader = new LocalPhotoUploader(storageDirectory, BASE_URL, 2);
+        this.preProduct = new PreProduct(null, null, "mouse", new BigDecimal("55.0"), 5, "Gamer");
+    }
+
+    @AfterEach
+    void tearDown() {
+        photoUploader.destroy();
+    }
+
+    @Test
+    @DisplayName("must store the decoded photos named by their content")
+    void test1() throws IOException {
+        byte[] content = "a photo of a mouse".getBytes(UTF_8);
+
+        List<Photo> photos = photoUploader.upload(List.of(Base64.getMimeEncoder().encodeToString(content)), preProduct);
+
+        String photoName = photos.get(0).getUrl().substring(BASE_URL.length() + 1);
+        assertEquals(64, photoName.length());
+        assertArrayEquals(content, Files.readAllBytes(storageDirectory.resolve(photoName)));
+    }
+
+    @Test
+    @DisplayName("must store identical photos only once, keeping the photos order")
+    void test2() throws IOException {
+        String mouse = Base64.getEncoder().encodeToString("a photo of a mouse".getBytes(UTF_8));
+        String keyboard = Base64.getEncoder().encodeToString("a photo of a keyboard".getBytes(UTF_8));
+
+        List<Photo> photos = photoUploader.upload(List.of(mouse, keyboard, mouse), preProduct);
+
+        assertEquals(3, photos.size());
+        assertEquals(photos.get(0).getUrl(), photos.get(2).getUrl());
+        assertNotEquals(photos.get(0).getUrl(), photos.get(1).getUrl());
+        try (Stream<Path> files = Files.list(storageDirectory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("must delete the stored photos and ignore the ones stored elsewhere")
+    void test3() throws IOException {
+        String mouse = Base64.getEncoder().encodeToString("a photo of a mouse".getBytes(UTF_8));
+        String keyboard = Base64.getEncoder().encodeToString("a photo of a keyboard".getBytes(UTF_8));
+        List<Photo> photos = photoUploader.upload(List.of(mouse, keyboard), preProduct);
+
+        photoUploader.delete(List.of(photos.get(0), new Photo("https://elsewhere.com/photo.png")));
+
+        try (Stream<Path> files = Files.list(storageDirectory)) {
+            assertEquals(List.of(storageDirectory.resolve(photos.get(1).getUrl().substring(BASE_URL.length() + 1))),
+                         files.collect(toList()));
+        }
+    }
+}
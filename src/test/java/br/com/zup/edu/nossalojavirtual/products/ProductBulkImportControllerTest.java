@@ -0,0 +1,221 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.categories.Category;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import br.com.zup.edu.nossalojavirtual.users.User;
+import br.com.zup.edu.nossalojavirtual.users.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static java.util.Comparator.comparingInt;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc(printOnlyOnFailure = false)
+@ActiveProfiles("test")
+class ProductBulkImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${products.photos.storage-directory}")
+    private Path photosDirectory;
+
+    private Category category;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        this.user = userRepository.save(new User("seller@nossalojavirtual.com"));
+        this.category = categoryRepository.save(new Category("Computador"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("must import the products of a newline delimited payload and report each one")
+    void test1() throws Exception {
+
+        String payload = mapper.writeValueAsString(newProduct("mouse", this.category.getId())) + "\n" +
+                         mapper.writeValueAsString(newProduct("", this.category.getId())) + "\n" +
+                         mapper.writeValueAsString(newProduct("teclado", Long.MAX_VALUE)) + "\n" +
+                         mapper.writeValueAsString(newProduct("monitor", this.category.getId())) + "\n";
+
+        List<JsonNode> results = importProducts(MediaType.APPLICATION_NDJSON, payload);
+        results.sort(comparingInt(result -> result.get("index").asInt()));
+
+        assertEquals(4, results.size());
+        assertEquals("CREATED", results.get(0).get("status").asText());
+        assertEquals("INVALID", results.get(1).get("status").asText());
+        assertTrue(results.get(1).get("errors").get(0).asText().startsWith("name: "));
+        assertEquals("INVALID", results.get(2).get("status").asText());
+        assertEquals("CREATED", results.get(3).get("status").asText());
+        assertEquals(2, productRepository.count());
+    }
+
+    @Test
+    @DisplayName("must import the products of a JSON array payload")
+    void test2() throws Exception {
+
+        String payload = mapper.writeValueAsString(List.of(newProduct("mouse", this.category.getId()),
+                                                           newProduct("teclado", this.category.getId())));
+
+        List<JsonNode> results = importProducts(MediaType.APPLICATION_JSON, payload);
+
+        assertEquals(2, results.size());
+        assertEquals(0, results.get(0).get("index").asInt());
+        assertEquals(1, results.get(1).get("index").asInt());
+        assertEquals(2, productRepository.count());
+    }
+
+    @Test
+    @DisplayName("must keep the products imported before a malformed item")
+    void test3() throws Exception {
+
+        String payload = mapper.writeValueAsString(newProduct("mouse", this.category.getId())) + "\n{\"name\": ";
+
+        List<JsonNode> results = importProducts(MediaType.APPLICATION_NDJSON, payload);
+
+        assertEquals(2, results.size());
+        assertEquals("FAILED", results.get(0).get("status").asText());
+        assertEquals("CREATED", results.get(1).get("status").asText());
+        assertEquals(1, productRepository.count());
+    }
+
+    @Test
+    @DisplayName("should not import products when the token does not have the proper scope")
+    void test4() throws Exception {
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post("/api/products/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(mapper.writeValueAsString(newProduct("mouse", this.category.getId())))
+                .with(jwt());
+
+        mockMvc.perform(request)
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("must report an item with a value of the wrong type as invalid and go on with the next ones")
+    void test5() throws Exception {
+
+        String payload = "{\"name\": \"mouse\", \"price\": \"abc\"}\n" +
+                         mapper.writeValueAsString(newProduct("teclado", this.category.getId())) + "\n";
+
+        List<JsonNode> results = importProducts(MediaType.APPLICATION_NDJSON, payload);
+        results.sort(comparingInt(result -> result.get("index").asInt()));
+
+        assertEquals(2, results.size());
+        assertEquals("INVALID", results.get(0).get("status").asText());
+        assertTrue(results.get(0).get("errors").get(0).asText().startsWith("price: "));
+        assertEquals("CREATED", results.get(1).get("status").asText());
+        assertEquals(1, productRepository.count());
+    }
+
+    @Test
+    @DisplayName("must delete the photos of a product that could not be saved but keep the ones a saved product has")
+    void test6() throws Exception {
+        String shared = Base64.getEncoder().encodeToString("a photo of a mouse".getBytes(StandardCharsets.UTF_8));
+        String unique = Base64.getEncoder().encodeToString("a photo of a keyboard".getBytes(StandardCharsets.UTF_8));
+
+        String payload = mapper.writeValueAsString(newProduct("mouse", this.category.getId(), List.of(shared))) + "\n" +
+                         mapper.writeValueAsString(newProduct("teclado".repeat(50), this.category.getId(), List.of(shared, unique))) + "\n";
+
+        List<JsonNode> results = importProducts(MediaType.APPLICATION_NDJSON, payload);
+        results.sort(comparingInt(result -> result.get("index").asInt()));
+
+        assertEquals("CREATED", results.get(0).get("status").asText());
+        assertEquals("FAILED", results.get(1).get("status").asText());
+        assertTrue(Files.exists(photosDirectory.resolve(sha256("a photo of a mouse"))));
+        assertFalse(Files.exists(photosDirectory.resolve(sha256("a photo of a keyboard"))));
+    }
+
+    private List<JsonNode> importProducts(MediaType contentType, String payload) throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post("/api/products/bulk")
+                .contentType(contentType)
+                .content(payload)
+                .with(jwt().jwt(builder -> builder.claim("email", this.user.getUsername()))
+                        .authorities(new SimpleGrantedAuthority("SCOPE_product:write")));
+
+        String response = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            results.add(mapper.readTree(line));
+        }
+
+        return results;
+    }
+
+    private NewProductRequest newProduct(String name, Long categoryId) {
+        return newProduct(name, categoryId, List.of("www.foto1.com", "www.foto2.com"));
+    }
+
+    private NewProductRequest newProduct(String name, Long categoryId, List<String> photos) {
+        return new NewProductRequest(name,
+                new BigDecimal("55.0"),
+                5,
+                photos,
+                List.of(new NewCharacteristicRequest("iluminação", "rgb"),
+                        new NewCharacteristicRequest("dpi", "8000"),
+                        new NewCharacteristicRequest("cor", "preto")),
+                "Gamer",
+                categoryId);
+    }
+
+    private static String sha256(String content) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+        return String.format("%064x", new BigInteger(1, digest));
+    }
+}
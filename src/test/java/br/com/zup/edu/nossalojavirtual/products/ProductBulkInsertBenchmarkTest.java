@@ -0,0 +1,123 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.categories.Category;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import br.com.zup.edu.nossalojavirtual.users.User;
+import br.com.zup.edu.nossalojavirtual.users.UserRepository;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares the insert throughput of products, with their photos and characteristics,
+ * without and with JDBC batching.
+ *
+ * Run with <code>mvn test -Dbenchmark=true -Dtest=ProductBulkInsertBenchmarkTest</code>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProductBulkInsertBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductBulkInsertBenchmarkTest.class);
+
+    private static final int PRODUCTS = 5_000;
+    private static final int CHUNK_SIZE = 500;
+    private static final int WARM_UP_PRODUCTS = 500;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User seller;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        this.seller = userRepository.save(new User("seller@nossalojavirtual.com"));
+        this.category = categoryRepository.save(new Category("Tecnologia"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("must report the products insert throughput without and with JDBC batching")
+    void test1() {
+        insert(WARM_UP_PRODUCTS, 1);
+        insert(WARM_UP_PRODUCTS, null);
+
+        double unbatched = insert(PRODUCTS, 1);
+        double batched = insert(PRODUCTS, null);
+
+        LOG.info("[BENCHMARK] [PRODUCT] Insert of {} products: {} products/s one statement at a time, {} products/s batched ({}x)",
+                PRODUCTS, Math.round(unbatched), Math.round(batched), String.format("%.1f", batched / unbatched));
+    }
+
+    /**
+     * @param jdbcBatchSize the session batch size, null to use the configured one
+     * @return the inserted products per second
+     */
+    private double insert(int products, Integer jdbcBatchSize) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        long start = System.nanoTime();
+        for (int inserted = 0; inserted < products; inserted += CHUNK_SIZE) {
+            int chunk = Math.min(CHUNK_SIZE, products - inserted);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+
+                for (int i = 0; i < chunk; i++) {
+                    productRepository.save(newProduct(i));
+                }
+
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return products / (elapsed / 1_000_000_000d);
+    }
+
+    private Product newProduct(int index) {
+        PreProduct preProduct = new PreProduct(seller, category, "Galaxy " + index, new BigDecimal("1999.90"), 10, "smartphone");
+
+        return new Product(preProduct,
+                List.of(new Photo("www.foto1.com"), new Photo("www.foto2.com")),
+                Set.of(new Characteristic("cor", "preto"),
+                        new Characteristic("memória", "128gb"),
+                        new Characteristic("tela", "6 polegadas")));
+    }
+}
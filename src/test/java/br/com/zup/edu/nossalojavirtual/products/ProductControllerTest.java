@@ -2,10 +2,12 @@ package br.com.zup.edu.nossalojavirtual.products;
 
 import br.com.zup.edu.nossalojavirtual.categories.Category;
 import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryTree;
 import br.com.zup.edu.nossalojavirtual.users.User;
 import br.com.zup.edu.nossalojavirtual.users.UserRepository;
 import br.com.zup.edu.nossalojavirtual.util.CustomErrorMessage;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -27,6 +29,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Set;
 
+import static br.com.zup.edu.nossalojavirtual.shared.sql.SqlStatementBudget.recordStatements;
+import static br.com.zup.edu.nossalojavirtual.shared.sql.SqlStatementBudget.statementsAtMost;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -39,6 +43,11 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 class ProductControllerTest {
 
+    /**
+     * category + user + product + characteristics + photos batches + seller products to evict, the category is already in the tree
+     */
+    private static final int REGISTER_STATEMENTS_BUDGET = 6;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -54,6 +63,9 @@ class ProductControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CategoryTree categoryTree;
+
     private Category category;
 
     private NewProductRequest productRequest;
@@ -67,6 +79,7 @@ class ProductControllerTest {
         userRepository.save(this.user = new User("danyllosiqueira@gmail.com"));
 
         categoryRepository.save(this.category = new Category("Computador"));
+        categoryTree.refresh();
 
         this.productRequest = new NewProductRequest("mouse",
                 new BigDecimal("55.0"),
@@ -79,6 +92,13 @@ class ProductControllerTest {
                 this.category.getId());
     }
 
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
     @Test
     @Transactional
     @DisplayName("must register a product")
@@ -261,9 +281,19 @@ class ProductControllerTest {
                         MockMvcResultMatchers.status().isForbidden());
     }
 
+    @Test
+    @DisplayName("must register a product within a bounded number of statements")
+    void test7() throws Exception {
 
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(this.productRequest))
+                .with(jwt().jwt(builder -> builder.claim("email", this.user.getUsername()))
+                        .authorities(new SimpleGrantedAuthority("SCOPE_product:write")))
+                .with(recordStatements());
 
-
-
-
+        mockMvc.perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(statementsAtMost(REGISTER_STATEMENTS_BUDGET));
+    }
 }
@@ -1,9 +1,415 @@
 package br.com.zup.edu.nossalojavirtual.products;
 
-import static org.junit.jupiter.api.Assertions.*;
+import br.com.zup.edu.nossalojavirtual.categories.Category;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryTree;
+import br.com.zup.edu.nossalojavirtual.users.User;
+import br.com.zup.edu.nossalojavirtual.users.UserRepository;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static br.com.zup.edu.nossalojavirtual.shared.sql.SqlStatementBudget.recordStatements;
+import static br.com.zup.edu.nossalojavirtual.shared.sql.SqlStatementBudget.statementsAtMost;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc(printOnlyOnFailure = false)
+@ActiveProfiles("test")
 class ProductDetailsControllerTest {
 
+    /**
+     * product + photos + opinions page + questions page + seller other products, the hierarchy comes from the category tree
+     */
+    private static final int DETAILS_STATEMENTS_BUDGET = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryTree categoryTree;
+
+    @Autowired
+    private ProductOpinionRepository productOpinionRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RatingSummaryRebuilder ratingSummaryRebuilder;
+
+    @Autowired
+    private StockReservation stockReservation;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<Category> categories = new ArrayList<>();
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        User seller = userRepository.save(new User("seller@nossalojavirtual.com"));
+        User buyer = userRepository.save(new User("buyer@nossalojavirtual.com"));
+        User anotherBuyer = userRepository.save(new User("another.buyer@nossalojavirtual.com"));
+
+        Category category = categoryRepository.save(new Category("Tecnologia"));
+        categories.add(category);
+        for (String name : List.of("Celulares", "Smartphones", "Android")) {
+            category = categoryRepository.save(new Category(name, category));
+            categories.add(category);
+        }
+        categoryTree.refresh();
+
+        this.product = productRepository.save(newProduct(seller, category, "Galaxy"));
+        for (int i = 0; i < 4; i++) {
+            productRepository.save(newProduct(seller, category, "Galaxy " + i));
+        }
+
+        productOpinionRepository.save(new ProductOpinion(5, "Excelente", "muito rápido", this.product, buyer));
+        productOpinionRepository.save(new ProductOpinion(3, "Bom", "esquenta um pouco", this.product, anotherBuyer));
+        ratingSummaryRebuilder.rebuild();
+
+        questionRepository.save(new Question("Tem nota fiscal?", buyer, this.product));
+        questionRepository.save(new Question("Aceita troca?", anotherBuyer, this.product));
+    }
+
+    @AfterEach
+    void tearDown() {
+        questionRepository.deleteAll();
+        productOpinionRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+
+        Collections.reverse(categories);
+        categoryRepository.deleteAll(categories);
+    }
+
+    @Test
+    @DisplayName("must return the product details")
+    void test1() throws Exception {
+
+        mockMvc.perform(detailsRequest(this.product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categoryHierarchy", contains("Tecnologia", "Celulares", "Smartphones", "Android")))
+                .andExpect(jsonPath("$.photos", hasSize(2)))
+                .andExpect(jsonPath("$.characteristics", hasSize(3)))
+                .andExpect(jsonPath("$.sellerOtherProducts", hasSize(4)))
+                .andExpect(jsonPath("$.moreSellerOtherProducts").value(false))
+                .andExpect(jsonPath("$.opinions", hasSize(2)))
+                .andExpect(jsonPath("$.questions", hasSize(2)))
+                .andExpect(jsonPath("$.rating").value(4.0))
+                .andExpect(jsonPath("$.ratingCount").value(2))
+                .andExpect(jsonPath("$.ratingHistogram['3']").value(1))
+                .andExpect(jsonPath("$.ratingHistogram['5']").value(1));
+    }
+
+    @Test
+    @DisplayName("must load the product details within a bounded number of statements")
+    void test2() throws Exception {
+
+        mockMvc.perform(detailsRequest(this.product.getId()).with(recordStatements()))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(DETAILS_STATEMENTS_BUDGET));
+    }
+
+    @Test
+    @DisplayName("must return not found when the product does not exist")
+    void test3() throws Exception {
+
+        mockMvc.perform(detailsRequest(UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("should not return the product details when the token does not have the proper scope")
+    void test4() throws Exception {
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/api/products/{id}", this.product.getId())
+                .with(jwt());
+
+        mockMvc.perform(request)
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("must page through the product questions, newest first")
+    void test5() throws Exception {
+
+        String response = mockMvc.perform(pageRequest("/api/products/{id}/questions", null))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].title").value("Aceita troca?"))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+
+        String cursor = JsonPath.read(response, "$.nextCursor");
+
+        mockMvc.perform(pageRequest("/api/products/{id}/questions", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].title").value("Tem nota fiscal?"))
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+    }
+
+    @Test
+    @DisplayName("must page through the product opinions, newest first")
+    void test6() throws Exception {
+
+        String response = mockMvc.perform(pageRequest("/api/products/{id}/opinions", null))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].title").value("Bom"))
+                .andReturn().getResponse().getContentAsString();
+
+        String cursor = JsonPath.read(response, "$.nextCursor");
+
+        mockMvc.perform(pageRequest("/api/products/{id}/opinions", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].title").value("Excelente"))
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+    }
+
+    @Test
+    @DisplayName("must not page through the questions with an invalid cursor")
+    void test7() throws Exception {
+
+        mockMvc.perform(pageRequest("/api/products/{id}/questions", "invalid"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("must page through the seller other products with their first photo, newest first")
+    void test8() throws Exception {
+
+        mockMvc.perform(sellerProductsRequest("0", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andExpect(jsonPath("$.items[0].name").value("Galaxy 3"))
+                .andExpect(jsonPath("$.items[0].photo.url").value("www.foto2.com"))
+                .andExpect(jsonPath("$.page").value(0))
+                .andExpect(jsonPath("$.hasNext").value(true));
+
+        mockMvc.perform(sellerProductsRequest("1", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name").value("Galaxy 0"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    @DisplayName("must not page through the seller other products with an invalid page size")
+    void test9() throws Exception {
+
+        mockMvc.perform(sellerProductsRequest("0", "0"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(sellerProductsRequest("0", "51"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletRequestBuilder sellerProductsRequest(String page, String size) {
+        return MockMvcRequestBuilders.get("/api/products/{id}/seller-products", this.product.getId())
+                .param("page", page)
+                .param("size", size)
+                .with(jwt()
+                        .authorities(new SimpleGrantedAuthority("SCOPE_product:read")));
+    }
+
+    private MockHttpServletRequestBuilder pageRequest(String path, String cursor) {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(path, this.product.getId())
+                .param("size", "1")
+                .with(jwt()
+                        .authorities(new SimpleGrantedAuthority("SCOPE_product:read")));
+
+        return cursor == null ? request : request.param("cursor", cursor);
+    }
+
+    @Test
+    @DisplayName("must answer with the request profile only when it is asked for by a client with the profile scope")
+    void test10() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/{id}", this.product.getId())
+                        .with(jwt()
+                                .authorities(new SimpleGrantedAuthority("SCOPE_product:read"),
+                                        new SimpleGrantedAuthority("SCOPE_profile:read")))
+                        .header("Accept-Language", "pt-br")
+                        .header("X-Request-Profile", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(this.product.getId().toString()))
+                .andExpect(header().string("X-Request-Profile", matchesPattern("sql=[1-9]\\d*;sqlTime=.*;rows=[1-9]\\d*;entities=[1-9]\\d*;"
+                        + "feign=0;feignTime=0\\.0;serializationTime=.*;totalTime=.*")));
+
+        mockMvc.perform(detailsRequest(this.product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Request-Profile"));
+
+        mockMvc.perform(detailsRequest(this.product.getId()).header("X-Request-Profile", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Request-Profile"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/{id}", this.product.getId())
+                        .header("X-Request-Profile", "true"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().doesNotExist("X-Request-Profile"));
+    }
+
+    @Test
+    @DisplayName("must build the seller details URI from each request even when the details are cached")
+    void test11() throws Exception {
+
+        mockMvc.perform(detailsRequest(this.product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sellersDetails").value("http://localhost/api/products/seller@nossalojavirtual.com"));
+
+        mockMvc.perform(detailsRequest(this.product.getId()).with(request -> {
+                    request.setServerName("loja.example.com");
+                    return request;
+                }))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sellersDetails").value("http://loja.example.com/api/products/seller@nossalojavirtual.com"));
+    }
+
+    @Test
+    @DisplayName("must not return the cached product details after an opinion is registered")
+    void test12() throws Exception {
+        userRepository.save(new User("new.buyer@nossalojavirtual.com"));
+
+        mockMvc.perform(detailsRequest(this.product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.opinions", hasSize(2)))
+                .andExpect(jsonPath("$.ratingCount").value(2));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/opinions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rating\": 1, \"title\": \"Ruim\", \"description\": \"parou de carregar\", " +
+                                 "\"productId\": \"" + this.product.getId() + "\"}")
+                        .with(jwt().jwt(builder -> builder.claim("email", "new.buyer@nossalojavirtual.com"))
+                                .authorities(new SimpleGrantedAuthority("SCOPE_opinion:write"))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(detailsRequest(this.product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.opinions", hasSize(3)))
+                .andExpect(jsonPath("$.opinions[0].title").value("Ruim"))
+                .andExpect(jsonPath("$.ratingCount").value(3))
+                .andExpect(jsonPath("$.ratingHistogram['1']").value(1));
+    }
+
+    @Test
+    @DisplayName("must not return the cached product details after a question is registered")
+    void test13() throws Exception {
+
+        mockMvc.perform(detailsRequest(this.product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.questions", hasSize(2)));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/products/{id}/questions", this.product.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"Vem com carregador?\"}")
+                        .with(jwt().jwt(builder -> builder.claim("email", "buyer@nossalojavirtual.com"))
+                                .authorities(new SimpleGrantedAuthority("SCOPE_questions:write"))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(detailsRequest(this.product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.questions", hasSize(3)))
+                .andExpect(jsonPath("$.questions[0].title").value("Vem com carregador?"));
+    }
+
+    @Test
+    @DisplayName("must not return the cached product details after the stock is reserved by a purchase")
+    void test14() throws Exception {
+
+        mockMvc.perform(detailsRequest(this.product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stockQuantity").value(10));
+
+        assertTrue(stockReservation.reserve(this.product.getId(), 3));
+
+        mockMvc.perform(detailsRequest(this.product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stockQuantity").value(7));
+    }
+
+    @Test
+    @DisplayName("must publish the product details cache metrics")
+    void test15() throws Exception {
+        double hits = cacheGets("hit");
+        double misses = cacheGets("miss");
+
+        mockMvc.perform(detailsRequest(this.product.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(detailsRequest(this.product.getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(misses + 1, cacheGets("miss"));
+        assertEquals(hits + 1, cacheGets("hit"));
+        assertNotNull(meterRegistry.find("cache.size").tag("cache", "productDetails").gauge());
+        assertNotNull(meterRegistry.find("cache.evictions").tag("cache", "productDetails").functionCounter());
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                            .tag("cache", "productDetails")
+                            .tag("result", result)
+                            .functionCounter()
+                            .count();
+    }
+
+    private MockHttpServletRequestBuilder detailsRequest(UUID id) {
+        return MockMvcRequestBuilders.get("/api/products/{id}", id)
+                .with(jwt()
+                        .authorities(new SimpleGrantedAuthority("SCOPE_product:read")))
+                .header("Accept-Language", "pt-br");
+    }
 
+    private Product newProduct(User seller, Category category, String name) {
+        PreProduct preProduct = new PreProduct(seller, category, name, new BigDecimal("1999.90"), 10, "smartphone");
 
+        return new Product(preProduct,
+                List.of(new Photo("www.foto2.com"), new Photo("www.foto1.com")),
+                Set.of(new Characteristic("cor", "preto"),
+                        new Characteristic("memória", "128gb"),
+                        new Characteristic("tela", "6 polegadas")));
+    }
 }
@@ -6,6 +6,9 @@ import br.com.zup.edu.nossalojavirtual.users.User;
 import br.com.zup.edu.nossalojavirtual.users.UserRepository;
 import br.com.zup.edu.nossalojavirtual.util.CustomErrorMessage;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -21,13 +24,17 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.persistence.EntityManagerFactory;
 import javax.transaction.Transactional;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import static br.com.zup.edu.nossalojavirtual.shared.sql.SqlStatementBudget.recordStatements;
+import static br.com.zup.edu.nossalojavirtual.shared.sql.SqlStatementBudget.statementsAtMost;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,6 +46,11 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 class ProductOpinionControllerTest {
 
+    /**
+     * product + user + product snapshot + opinion + rating summary
+     */
+    private static final int REGISTER_STATEMENTS_BUDGET = 5;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -57,6 +69,9 @@ class ProductOpinionControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private Category category;
 
     private Product product;
@@ -68,6 +83,7 @@ class ProductOpinionControllerTest {
     void setUp() {
         productRepository.deleteAll();
         userRepository.deleteAll();
+        userRepository.flush();
         userRepository.save(this.user = new User("danyllosiqueira@gmail.com"));
         categoryRepository.save(this.category = new Category("Computador"));
 
@@ -82,6 +98,14 @@ class ProductOpinionControllerTest {
         productRepository.save(this.product);
     }
 
+    @AfterEach
+    void tearDown() {
+        productOpinionRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
     @Test
     @Transactional
     @DisplayName("must register a product opinion")
@@ -109,8 +133,11 @@ class ProductOpinionControllerTest {
                 );
 
         List<ProductOpinion> opinions = productOpinionRepository.findAll();
+        RatingSummary ratingSummary = productRepository.findById(this.product.getId()).get().getRatingSummary();
 
         assertEquals(1, opinions.size());
+        assertEquals(1, ratingSummary.getCount());
+        assertEquals(1L, ratingSummary.histogram().get(3));
     }
 
     @Test
@@ -250,4 +277,44 @@ class ProductOpinionControllerTest {
                         MockMvcResultMatchers.status().isForbidden());
     }
 
+    @Test
+    @DisplayName("must look the product up only once while validating and registering an opinion")
+    void test7() throws Exception {
+
+        NewOpinionRequest newOpinion = new NewOpinionRequest(5, "Excelente", "muito confortável", this.product.getId());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post("/api/opinions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(newOpinion))
+                .with(jwt().jwt(builder -> builder.claim("email", this.user.getUsername()))
+                        .authorities(new SimpleGrantedAuthority("SCOPE_opinion:write")));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(request)
+                .andExpect(status().isCreated());
+
+        assertEquals(1, statistics.getEntityStatistics(Product.class.getName()).getLoadCount());
+        assertTrue(Stream.of(statistics.getQueries()).noneMatch(query -> query.contains("count(")),
+                "the product existence was checked by a separate query");
+    }
+
+    @Test
+    @DisplayName("must register an opinion within a bounded number of statements")
+    void test8() throws Exception {
+
+        NewOpinionRequest newOpinion = new NewOpinionRequest(4, "Bom", "confortável", this.product.getId());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post("/api/opinions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(newOpinion))
+                .with(jwt().jwt(builder -> builder.claim("email", this.user.getUsername()))
+                        .authorities(new SimpleGrantedAuthority("SCOPE_opinion:write")))
+                .with(recordStatements());
+
+        mockMvc.perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(statementsAtMost(REGISTER_STATEMENTS_BUDGET));
+    }
 }
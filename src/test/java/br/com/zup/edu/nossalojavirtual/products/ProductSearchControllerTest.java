@@ -0,0 +1,230 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.categories.Category;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryTree;
+import br.com.zup.edu.nossalojavirtual.users.User;
+import br.com.zup.edu.nossalojavirtual.users.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc(printOnlyOnFailure = false)
+@ActiveProfiles("test")
+class ProductSearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryTree categoryTree;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private StockReservation stockReservation;
+
+    private final List<Category> categories = new ArrayList<>();
+
+    private User seller;
+
+    private Category technology;
+
+    private Category phones;
+
+    private Product galaxy;
+
+    @BeforeEach
+    void setUp() {
+        this.seller = userRepository.save(new User("seller@nossalojavirtual.com"));
+
+        this.technology = categoryRepository.save(new Category("Tecnologia"));
+        this.phones = categoryRepository.save(new Category("Celulares", technology));
+        Category computers = categoryRepository.save(new Category("Computadores", technology));
+        categories.addAll(List.of(technology, phones, computers));
+        categoryTree.refresh();
+
+        this.galaxy = productRepository.save(newProduct("Galaxy S22", phones, "1999.90", "smartphone com tela grande",
+                new Characteristic("memória", "128gb")));
+        productRepository.save(newProduct("Moto G", phones, "899.90", "smartphone barato",
+                new Characteristic("memória", "64gb")));
+        productRepository.save(newProduct("Mouse", computers, "55.00", "mouse sem fio",
+                new Characteristic("dpi", "8000")));
+
+        productSearchIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+
+        Collections.reverse(categories);
+        categoryRepository.deleteAll(categories);
+    }
+
+    @Test
+    @DisplayName("must find the products by their name")
+    void test1() throws Exception {
+
+        mockMvc.perform(searchRequest().param("q", "galaxy"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("Galaxy S22"))
+                .andExpect(jsonPath("$.items[0].price").value(1999.90))
+                .andExpect(jsonPath("$.items[0].stockQuantity").value(10))
+                .andExpect(jsonPath("$.items[0].photo").value("www.foto1.com"));
+    }
+
+    @Test
+    @DisplayName("must find the products by their description, characteristics and categories with facet counts")
+    void test2() throws Exception {
+
+        mockMvc.perform(searchRequest().param("q", "smartphone"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.categories[?(@.name == 'Tecnologia')].count", contains(2)))
+                .andExpect(jsonPath("$.categories[?(@.name == 'Celulares')].count", contains(2)))
+                .andExpect(jsonPath("$.prices[?(@.range == '500-1000')].count", contains(1)))
+                .andExpect(jsonPath("$.prices[?(@.range == '1000+')].count", contains(1)));
+
+        mockMvc.perform(searchRequest().param("q", "128gb"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Galaxy S22")));
+
+        mockMvc.perform(searchRequest().param("q", "computadores"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Mouse")));
+    }
+
+    @Test
+    @DisplayName("must list the products of a category and price range, newest first")
+    void test3() throws Exception {
+
+        mockMvc.perform(searchRequest().param("category", this.technology.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Mouse", "Moto G", "Galaxy S22")));
+
+        mockMvc.perform(searchRequest()
+                        .param("category", this.phones.getId().toString())
+                        .param("minPrice", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Galaxy S22")));
+
+        mockMvc.perform(searchRequest().param("page", "1").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.items", hasSize(1)));
+    }
+
+    @Test
+    @DisplayName("must find registered products and their current stock without a rebuild")
+    void test4() throws Exception {
+
+        Product keyboard = productRepository.save(newProduct("Teclado", this.categories.get(2), "150.00", "teclado mecânico",
+                new Characteristic("switch", "azul")));
+        productSearchIndex.index(List.of(keyboard));
+        assertTrue(stockReservation.reserve(this.galaxy.getId(), 3));
+        productSearchIndex.refresh();
+
+        mockMvc.perform(searchRequest().param("q", "teclado"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Teclado")));
+
+        mockMvc.perform(searchRequest().param("q", "galaxy"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].stockQuantity").value(7));
+    }
+
+    @Test
+    @DisplayName("must not search with an invalid page size")
+    void test5() throws Exception {
+
+        mockMvc.perform(searchRequest().param("size", "0"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(searchRequest().param("page", "100").param("size", "50"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("should not search products when the token does not have the proper scope")
+    void test6() throws Exception {
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/api/products")
+                .with(jwt());
+
+        mockMvc.perform(request)
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("must rebuild the index when it does not match the database")
+    void test7() throws Exception {
+
+        productRepository.delete(this.galaxy);
+        productSearchIndex.rebuildIfOutOfSync();
+
+        mockMvc.perform(searchRequest().param("q", "galaxy"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/actuator/productsearchindex")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("SCOPE_actuator:write"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.indexed").value(2));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/actuator/productsearchindex")
+                        .with(jwt()))
+                .andExpect(status().isForbidden());
+    }
+
+    private MockHttpServletRequestBuilder searchRequest() {
+        return MockMvcRequestBuilders.get("/api/products")
+                .with(jwt()
+                        .authorities(new SimpleGrantedAuthority("SCOPE_product:read")));
+    }
+
+    private Product newProduct(String name, Category category, String price, String description, Characteristic characteristic) {
+        PreProduct preProduct = new PreProduct(this.seller, category, name, new BigDecimal(price), 10, description);
+
+        return new Product(preProduct,
+                List.of(new Photo("www.foto1.com"), new Photo("www.foto2.com")),
+                Set.of(characteristic,
+                        new Characteristic("cor", "preto"),
+                        new Characteristic("garantia", "1 ano")));
+    }
+}
@@ -0,0 +1,178 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.categories.Category;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import br.com.zup.edu.nossalojavirtual.shared.email.Email;
+import br.com.zup.edu.nossalojavirtual.shared.email.EmailDispatcher;
+import br.com.zup.edu.nossalojavirtual.shared.email.EmailRepository;
+import br.com.zup.edu.nossalojavirtual.users.User;
+import br.com.zup.edu.nossalojavirtual.users.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "products.feedback.page-size=2")
+@AutoConfigureMockMvc(printOnlyOnFailure = false)
+@ActiveProfiles("test")
+class QuestionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Autowired
+    private EmailDispatcher emailDispatcher;
+
+    @Autowired
+    private QuestionDigests questionDigests;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Product product;
+
+    private User buyer;
+
+    @BeforeEach
+    void setUp() {
+        User seller = userRepository.save(new User("seller@nossalojavirtual.com"));
+        this.buyer = userRepository.save(new User("buyer@nossalojavirtual.com"));
+        Category category = categoryRepository.save(new Category("Tecnologia"));
+
+        PreProduct preProduct = new PreProduct(seller, category, "Galaxy", new BigDecimal("1999.90"), 10, "smartphone");
+        this.product = productRepository.save(new Product(preProduct,
+                List.of(new Photo("www.foto1.com")),
+                Set.of(new Characteristic("cor", "preto"),
+                        new Characteristic("memória", "128gb"),
+                        new Characteristic("tela", "6 polegadas"))));
+
+        for (String title : List.of("Tem nota fiscal?", "Aceita troca?", "Tem garantia?")) {
+            questionRepository.save(new Question(title, buyer, this.product));
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        questionDigests.flushAll();
+        emailDispatcher.awaitDelivery(Duration.ofSeconds(10));
+        emailRepository.deleteAll();
+        questionRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("must register a question and return the newest questions page when it is asked for")
+    void test1() throws Exception {
+
+        mockMvc.perform(askQuestion(this.product.getId(), "Vem com carregador?").param("view", "page"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].title").value("Vem com carregador?"))
+                .andExpect(jsonPath("$.items[1].title").value("Tem garantia?"))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty());
+    }
+
+    @Test
+    @DisplayName("must register a question and return only the created question")
+    void test2() throws Exception {
+
+        mockMvc.perform(askQuestion(this.product.getId(), "Vem com carregador?").param("view", "question"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.title").value("Vem com carregador?"))
+                .andExpect(jsonPath("$.user").value(this.buyer.getUsername()));
+    }
+
+    @Test
+    @DisplayName("must not register a question when the product does not exist")
+    void test3() throws Exception {
+
+        mockMvc.perform(askQuestion(UUID.randomUUID(), "Vem com carregador?"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("must not register a question with an unknown response view")
+    void test4() throws Exception {
+
+        mockMvc.perform(askQuestion(this.product.getId(), "Vem com carregador?").param("view", "all"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("must send and store a single seller email from the digest address for the questions asked within the digest window")
+    void test5() throws Exception {
+
+        mockMvc.perform(askQuestion(this.product.getId(), "Vem com carregador?"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(askQuestion(this.product.getId(), "Qual a cor?"))
+                .andExpect(status().isCreated());
+
+        questionDigests.flush();
+        assertTrue(emailDispatcher.awaitDelivery(Duration.ofSeconds(10)));
+        assertEquals(0, emailRepository.count());
+
+        questionDigests.flushAll();
+        assertTrue(emailDispatcher.awaitDelivery(Duration.ofSeconds(10)));
+        assertEquals(1, emailRepository.count());
+
+        Email email = emailRepository.findAll().iterator().next();
+        assertEquals("perguntas@nossalojavirtual.com", email.getFrom());
+        assertTrue(email.getBody().contains("Vem com carregador? asked by " + this.buyer.getUsername()));
+        assertTrue(email.getBody().contains("Qual a cor? asked by " + this.buyer.getUsername()));
+    }
+
+    @Test
+    @DisplayName("must register a question and return the newest questions as a list by default")
+    void test6() throws Exception {
+
+        mockMvc.perform(askQuestion(this.product.getId(), "Vem com carregador?"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].title").value("Vem com carregador?"))
+                .andExpect(jsonPath("$[1].title").value("Tem garantia?"));
+    }
+
+    private MockHttpServletRequestBuilder askQuestion(UUID productId, String title) {
+        return MockMvcRequestBuilders.post("/api/products/{id}/questions", productId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"" + title + "\"}")
+                .with(jwt().jwt(builder -> builder.claim("email", this.buyer.getUsername()))
+                        .authorities(new SimpleGrantedAuthority("SCOPE_questions:write")));
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.shared.email.Email;
+import br.com.zup.edu.nossalojavirtual.shared.email.EmailDispatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuestionDigestsTest {
+
+    private static final String DIGEST_ADDRESS = "perguntas@nossalojavirtual.com";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final EmailDispatcher emailDispatcher = mock(EmailDispatcher.class);
+
+    private final Product celular = product();
+    private final Product notebook = product();
+
+    @Test
+    @DisplayName("must send a question on its own when the maximum digests are pending")
+    void test1() {
+        QuestionDigests questionDigests = questionDigests(1, 50);
+
+        questionDigests.add(question(celular, "Vem com carregador?", "comprador@nossalojavirtual.com"));
+        questionDigests.add(question(notebook, "Tem garantia?", "curioso@nossalojavirtual.com"));
+
+        List<Email> sent = sentEmails(1);
+        assertEquals("curioso@nossalojavirtual.com", sent.get(0).getFrom());
+        assertEquals("Tem garantia? in /api/products/" + notebook.getId(), sent.get(0).getBody());
+
+        questionDigests.add(question(celular, "Qual a cor?", "curioso@nossalojavirtual.com"));
+        assertEquals(2, pending());
+
+        questionDigests.flushAll();
+
+        Email digest = sentEmails(2).get(1);
+        assertEquals(DIGEST_ADDRESS, digest.getFrom());
+        assertEquals(" You have 2 new questions", digest.getSubject());
+        assertEquals(0, pending());
+    }
+
+    @Test
+    @DisplayName("must send a digest as soon as it holds the maximum questions")
+    void test2() {
+        QuestionDigests questionDigests = questionDigests(100, 3);
+
+        questionDigests.add(question(celular, "Vem com carregador?", "comprador@nossalojavirtual.com"));
+        questionDigests.add(question(celular, "Tem garantia?", "curioso@nossalojavirtual.com"));
+        verify(emailDispatcher, never()).dispatch(any());
+
+        questionDigests.add(question(celular, "Qual a cor?", "comprador@nossalojavirtual.com"));
+
+        Email digest = sentEmails(1).get(0);
+        assertEquals(DIGEST_ADDRESS, digest.getFrom());
+        assertEquals(" You have 3 new questions", digest.getSubject());
+        assertEquals("In /api/products/" + celular.getId() + ":\n"
+                        + "Vem com carregador? asked by comprador@nossalojavirtual.com\n"
+                        + "Tem garantia? asked by curioso@nossalojavirtual.com\n"
+                        + "Qual a cor? asked by comprador@nossalojavirtual.com",
+                digest.getBody());
+        assertEquals(0, pending());
+    }
+
+    private QuestionDigests questionDigests(int maxDigests, int maxQuestions) {
+        return new QuestionDigests(emailDispatcher, meterRegistry, DIGEST_ADDRESS, Duration.ofHours(1), maxDigests, maxQuestions);
+    }
+
+    private List<Email> sentEmails(int count) {
+        ArgumentCaptor<Email> emails = ArgumentCaptor.forClass(Email.class);
+        verify(emailDispatcher, times(count)).dispatch(emails.capture());
+        return emails.getAllValues();
+    }
+
+    private double pending() {
+        return meterRegistry.get("products.question-digests.pending").gauge().value();
+    }
+
+    private static Product product() {
+        Product product = mock(Product.class);
+        when(product.getId()).thenReturn(UUID.randomUUID());
+        return product;
+    }
+
+    private static QuestionEvent question(Product product, String title, String possibleBuyer) {
+        String productUri = "/api/products/" + product.getId();
+
+        QuestionEvent question = mock(QuestionEvent.class);
+        when(question.getTitle()).thenReturn(title);
+        when(question.getPossibleBuyer()).thenReturn(possibleBuyer);
+        when(question.getSellersEmail()).thenReturn("vendedor@nossalojavirtual.com");
+        when(question.getProduct()).thenReturn(product);
+        when(question.getProductUri()).thenReturn(productUri);
+        return question;
+    }
+}
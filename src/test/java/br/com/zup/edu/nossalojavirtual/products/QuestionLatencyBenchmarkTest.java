@@ -0,0 +1,183 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.categories.Category;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import br.com.zup.edu.nossalojavirtual.shared.email.EmailDispatcher;
+import br.com.zup.edu.nossalojavirtual.shared.email.EmailRepository;
+import br.com.zup.edu.nossalojavirtual.users.User;
+import br.com.zup.edu.nossalojavirtual.users.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Measures the latency of asking a question while the product questions grow.
+ *
+ * Run with <code>mvn test -Dbenchmark=true -Dtest=QuestionLatencyBenchmarkTest</code>
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class QuestionLatencyBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QuestionLatencyBenchmarkTest.class);
+
+    private static final int[] QUESTION_COUNTS = { 100, 1_000, 10_000, 50_000 };
+    private static final int SAMPLES = 50;
+    private static final int CHUNK_SIZE = 1_000;
+
+    /**
+     * how much slower the largest product may answer than the smallest one
+     */
+    private static final double MAX_SLOWDOWN = 3.0;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Autowired
+    private EmailDispatcher emailDispatcher;
+
+    @Autowired
+    private QuestionDigests questionDigests;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Product product;
+
+    private User buyer;
+
+    @BeforeEach
+    void setUp() {
+        User seller = userRepository.save(new User("seller@nossalojavirtual.com"));
+        this.buyer = userRepository.save(new User("buyer@nossalojavirtual.com"));
+        Category category = categoryRepository.save(new Category("Tecnologia"));
+
+        PreProduct preProduct = new PreProduct(seller, category, "Galaxy", new BigDecimal("1999.90"), 10, "smartphone");
+        this.product = productRepository.save(new Product(preProduct,
+                List.of(new Photo("www.foto1.com")),
+                Set.of(new Characteristic("cor", "preto"),
+                        new Characteristic("memória", "128gb"),
+                        new Characteristic("tela", "6 polegadas"))));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        questionDigests.flushAll();
+        emailDispatcher.awaitDelivery(Duration.ofSeconds(10));
+        emailRepository.deleteAll();
+        questionRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("must keep the latency of asking a question flat while the product questions grow")
+    void test1() throws Exception {
+        askQuestions(SAMPLES);
+
+        double[] medians = new double[QUESTION_COUNTS.length];
+        int existing = 0;
+        for (int i = 0; i < QUESTION_COUNTS.length; i++) {
+            insertQuestions(QUESTION_COUNTS[i] - existing);
+            existing = QUESTION_COUNTS[i];
+
+            medians[i] = askQuestions(SAMPLES);
+            existing += SAMPLES;
+
+            LOG.info("[BENCHMARK] [QUESTION] {} questions: median of {} ms to ask a question",
+                    QUESTION_COUNTS[i], String.format("%.2f", medians[i]));
+        }
+
+        double slowdown = medians[medians.length - 1] / medians[0];
+        assertTrue(slowdown < MAX_SLOWDOWN, String.format("asking a question got %.1fx slower", slowdown));
+    }
+
+    /**
+     * @return the median latency in milliseconds
+     */
+    private double askQuestions(int questions) throws Exception {
+        double[] latencies = new double[questions];
+
+        for (int i = 0; i < questions; i++) {
+            long start = System.nanoTime();
+
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/products/{id}/questions", this.product.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"title\": \"Vem com carregador?\"}")
+                            .with(jwt().jwt(builder -> builder.claim("email", this.buyer.getUsername()))
+                                    .authorities(new SimpleGrantedAuthority("SCOPE_questions:write"))))
+                    .andExpect(status().isCreated());
+
+            latencies[i] = (System.nanoTime() - start) / 1_000_000d;
+        }
+
+        Arrays.sort(latencies);
+        return latencies[questions / 2];
+    }
+
+    private void insertQuestions(int questions) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        for (int inserted = 0; inserted < questions; inserted += CHUNK_SIZE) {
+            int chunk = Math.min(CHUNK_SIZE, questions - inserted);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                Product product = entityManager.getReference(Product.class, this.product.getId());
+                User buyer = entityManager.getReference(User.class, this.buyer.getId());
+
+                for (int i = 0; i < chunk; i++) {
+                    entityManager.persist(new Question("Tem nota fiscal?", buyer, product));
+                }
+
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+    }
+}
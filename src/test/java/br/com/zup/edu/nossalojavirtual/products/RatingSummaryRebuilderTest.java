@@ -0,0 +1,111 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.categories.Category;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import br.com.zup.edu.nossalojavirtual.users.User;
+import br.com.zup.edu.nossalojavirtual.users.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RatingSummaryRebuilderTest {
+
+    @Autowired
+    private RatingSummaryRebuilder ratingSummaryRebuilder;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductOpinionRepository productOpinionRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        productOpinionRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User seller = userRepository.save(new User("vendedor@nossalojavirtual.com"));
+        User buyer = userRepository.save(new User("comprador@nossalojavirtual.com"));
+        User anotherBuyer = userRepository.save(new User("outro.comprador@nossalojavirtual.com"));
+        Category category = categoryRepository.save(new Category("Periféricos"));
+
+        PreProduct preProduct = new PreProduct(seller, category, "Mouse", new BigDecimal("55.0"), 5, "gamer");
+        this.product = productRepository.save(new Product(preProduct,
+                List.of(new Photo("www.foto1.com")),
+                Set.of(new Characteristic("cor", "preto"),
+                       new Characteristic("luz", "rgb"),
+                       new Characteristic("tipo", "gamer"))));
+
+        productOpinionRepository.save(new ProductOpinion(5, "Excelente", "muito rápido", this.product, buyer));
+        productOpinionRepository.save(new ProductOpinion(3, "Bom", "esquenta um pouco", this.product, anotherBuyer));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productOpinionRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("must rebuild the rating summaries that do not match the opinions")
+    void test1() {
+        assertEquals(1, ratingSummaryRebuilder.rebuild());
+        assertEquals(0, ratingSummaryRebuilder.rebuild());
+
+        assertEquals(List.of(2L, 8L, 0L, 0L, 1L, 0L, 1L), ratingSummary());
+    }
+
+    @Test
+    @DisplayName("must rebuild a rating summary whose count and sum match but whose histogram does not")
+    void test2() {
+        ratingSummaryRebuilder.rebuild();
+        jdbcTemplate.update("update products set product_rating_three_stars = 0, product_rating_four_stars = 2, " +
+                            "product_rating_five_stars = 0 where product_id = ?", this.product.getId());
+
+        assertEquals(1, ratingSummaryRebuilder.rebuild());
+        assertEquals(List.of(2L, 8L, 0L, 0L, 1L, 0L, 1L), ratingSummary());
+    }
+
+    /**
+     * count, sum and the ratings from one to five stars
+     */
+    private List<Long> ratingSummary() {
+        Map<String, Object> row = jdbcTemplate.queryForMap("select product_rating_count, product_rating_sum, " +
+                "product_rating_one_star, product_rating_two_stars, product_rating_three_stars, " +
+                "product_rating_four_stars, product_rating_five_stars from products where product_id = ?", this.product.getId());
+
+        return row.values()
+                  .stream()
+                  .map(value -> ((Number) value).longValue())
+                  .collect(toList());
+    }
+}
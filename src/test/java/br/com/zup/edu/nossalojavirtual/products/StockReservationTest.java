@@ -0,0 +1,119 @@
+package br.com.zup.edu.nossalojavirtual.products;
+
+import br.com.zup.edu.nossalojavirtual.categories.Category;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import br.com.zup.edu.nossalojavirtual.users.User;
+import br.com.zup.edu.nossalojavirtual.users.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StockReservationTest {
+
+    private static final int STOCK = 10;
+    private static final int BUYERS = 200;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private StockReservation stockReservation;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        User seller = userRepository.save(new User("seller@nossalojavirtual.com"));
+        Category category = categoryRepository.save(new Category("Tecnologia"));
+
+        PreProduct preProduct = new PreProduct(seller, category, "Playstation 5", new BigDecimal("4999.90"), STOCK, "console");
+        this.product = productRepository.save(new Product(preProduct,
+                List.of(new Photo("www.foto1.com")),
+                Set.of(new Characteristic("cor", "branco"),
+                        new Characteristic("armazenamento", "825gb"),
+                        new Characteristic("controles", "1"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("must not oversell when many buyers reserve the same product at the same time")
+    void test1() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Boolean>> reservations = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            Callable<Boolean> reservation = () -> {
+                start.await();
+                return stockReservation.reserve(product.getId(), 1);
+            };
+            reservations.add(executor.submit(reservation));
+        }
+
+        start.countDown();
+
+        int reserved = 0;
+        for (Future<Boolean> reservation : reservations) {
+            if (reservation.get(30, TimeUnit.SECONDS)) {
+                reserved++;
+            }
+        }
+
+        executor.shutdown();
+
+        assertEquals(STOCK, reserved);
+        assertEquals(0, productRepository.findById(product.getId()).get().getStockQuantity());
+    }
+
+    @Test
+    @DisplayName("must not reserve more than the stock quantity")
+    void test2() {
+
+        assertFalse(stockReservation.reserve(product.getId(), STOCK + 1));
+        assertTrue(stockReservation.reserve(product.getId(), STOCK));
+        assertFalse(stockReservation.reserve(product.getId(), 1));
+    }
+
+    @Test
+    @DisplayName("must not reserve less than one unit")
+    void test3() {
+
+        assertThrows(IllegalArgumentException.class, () -> stockReservation.reserve(product.getId(), 0));
+    }
+}
@@ -0,0 +1,112 @@
+package br.com.zup.edu.nossalojavirtual.purchase;
+
+import br.com.zup.edu.nossalojavirtual.purchase.OutboxMessage.OutboxStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static br.com.zup.edu.nossalojavirtual.purchase.OutboxDestination.INVOICE;
+import static br.com.zup.edu.nossalojavirtual.purchase.OutboxDestination.SELLERS_RANKING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OutboxRelayTest {
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private InvoiceClient invoiceClient;
+
+    @MockBean
+    private SellersRankingClient sellersRankingClient;
+
+    @AfterEach
+    void tearDown() {
+        outboxMessageRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("must deliver the pending messages to each outer system")
+    void test1() {
+        OutboxMessage invoice = outboxMessageRepository.save(new OutboxMessage(INVOICE, 1L, "buyer@nossalojavirtual.com"));
+        OutboxMessage ranking = outboxMessageRepository.save(new OutboxMessage(SELLERS_RANKING, 1L, "seller@nossalojavirtual.com"));
+
+        outboxRelay.relay();
+
+        verify(invoiceClient, times(1)).requestInvoices(argThat(requests -> requests.size() == 1));
+        verify(sellersRankingClient, times(1)).notifyPurchases(argThat(requests -> requests.size() == 1));
+        assertEquals(OutboxStatus.DELIVERED, outboxMessageRepository.findById(invoice.getId()).get().getStatus());
+        assertEquals(OutboxStatus.DELIVERED, outboxMessageRepository.findById(ranking.getId()).get().getStatus());
+    }
+
+    @Test
+    @DisplayName("must retry later the messages the outer system could not receive")
+    void test2() {
+        doThrow(new IllegalStateException("invoice system unavailable")).when(invoiceClient).requestInvoices(anyList());
+        OutboxMessage invoice = outboxMessageRepository.save(new OutboxMessage(INVOICE, 1L, "buyer@nossalojavirtual.com"));
+
+        outboxRelay.relay();
+        outboxRelay.relay();
+
+        OutboxMessage failed = outboxMessageRepository.findById(invoice.getId()).get();
+        verify(invoiceClient, times(1)).requestInvoices(anyList());
+        assertEquals(OutboxStatus.PENDING, failed.getStatus());
+        assertEquals(1, failed.getAttempts());
+        assertEquals("invoice system unavailable", failed.getLastError());
+        assertTrue(failed.getNextAttemptAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("must deliver the pending messages of a destination in a single call")
+    void test3() {
+        for (long purchaseId = 1; purchaseId <= 3; purchaseId++) {
+            outboxMessageRepository.save(new OutboxMessage(INVOICE, purchaseId, "buyer@nossalojavirtual.com"));
+        }
+
+        outboxRelay.relay();
+
+        verify(invoiceClient, times(1)).requestInvoices(argThat(requests -> requests.size() == 3));
+        assertTrue(outboxMessageRepository.findAll()
+                                          .stream()
+                                          .allMatch(message -> message.getStatus() == OutboxStatus.DELIVERED));
+    }
+
+    @Test
+    @DisplayName("must not deliver the messages claimed by another instance until the claim expires")
+    void test4() {
+        OutboxMessage invoice = outboxMessageRepository.save(new OutboxMessage(INVOICE, 1L, "buyer@nossalojavirtual.com"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                outboxMessageRepository.findDue(INVOICE, OutboxStatus.PENDING, LocalDateTime.now(), PageRequest.of(0, 10))
+                                       .forEach(message -> message.claim(LocalDateTime.now().plusMinutes(5))));
+
+        outboxRelay.relay();
+
+        verify(invoiceClient, never()).requestInvoices(anyList());
+        assertEquals(OutboxStatus.PENDING, outboxMessageRepository.findById(invoice.getId()).get().getStatus());
+    }
+}
@@ -0,0 +1,95 @@
+package br.com.zup.edu.nossalojavirtual.purchase;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class PostPurchaseActionDispatcherTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PostPurchaseActionDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.destroy();
+    }
+
+    @Test
+    @DisplayName("must interrupt an action that runs longer than the timeout and time it until it really ends")
+    void test1() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        PostPurchaseAction blocking = (purchase, uriBuilder) -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+        };
+        dispatcher = new PostPurchaseActionDispatcher(Set.of(blocking), meterRegistry, 1, 10, Duration.ofMillis(200));
+
+        dispatcher.dispatch(mock(PostPaymentProcessedPurchase.class), UriComponentsBuilder.newInstance());
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "the action was not interrupted");
+        Timer timer = awaitTimer("timeout");
+        assertEquals(1, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.MILLISECONDS) >= 200);
+    }
+
+    @Test
+    @DisplayName("must cancel an action still waiting for a thread when the timeout is over")
+    void test2() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PostPurchaseAction blocking = (purchase, uriBuilder) -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        PostPurchaseAction waiting = (purchase, uriBuilder) -> { };
+        dispatcher = new PostPurchaseActionDispatcher(new LinkedHashSet<>(List.of(blocking, waiting)), meterRegistry, 1, 10, Duration.ofMillis(200));
+
+        dispatcher.dispatch(mock(PostPaymentProcessedPurchase.class), UriComponentsBuilder.newInstance());
+
+        for (int i = 0; i < 250 && executions("timeout") < 2; i++) {
+            Thread.sleep(20);
+        }
+        release.countDown();
+
+        assertEquals(2, executions("timeout"));
+        assertEquals(0, executions("success"));
+    }
+
+    private Timer awaitTimer(String outcome) throws InterruptedException {
+        for (int i = 0; i < 250 && executions(outcome) == 0; i++) {
+            Thread.sleep(20);
+        }
+        return meterRegistry.get("purchase.post-actions").tag("outcome", outcome).timer();
+    }
+
+    private long executions(String outcome) {
+        return meterRegistry.find("purchase.post-actions")
+                            .tag("outcome", outcome)
+                            .timers()
+                            .stream()
+                            .mapToLong(Timer::count)
+                            .sum();
+    }
+}
@@ -0,0 +1,114 @@
+package br.com.zup.edu.nossalojavirtual.purchase;
+
+import br.com.zup.edu.nossalojavirtual.categories.Category;
+import br.com.zup.edu.nossalojavirtual.categories.CategoryRepository;
+import br.com.zup.edu.nossalojavirtual.products.ProductRepository;
+import br.com.zup.edu.nossalojavirtual.shared.email.Email;
+import br.com.zup.edu.nossalojavirtual.shared.email.EmailDispatcher;
+import br.com.zup.edu.nossalojavirtual.shared.email.EmailRepository;
+import br.com.zup.edu.nossalojavirtual.users.User;
+import br.com.zup.edu.nossalojavirtual.users.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc(printOnlyOnFailure = false)
+@ActiveProfiles("test")
+class SendPurchaseEmailConfirmationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SendPurchaseEmailConfirmation sendPurchaseEmailConfirmation;
+
+    @Autowired
+    private EmailDispatcher emailDispatcher;
+
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UUID productId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User seller = userRepository.save(new User("vendedor@nossalojavirtual.com"));
+        Category category = categoryRepository.save(new Category("Periféricos"));
+
+        String payload = "{\"name\": \"Mouse\", \"price\": 55.0, \"stockQuantity\": 5, \"photos\": [\"bW91c2U=\"], " +
+                         "\"characteristics\": [{\"name\": \"cor\", \"description\": \"preto\"}, " +
+                         "{\"name\": \"luz\", \"description\": \"rgb\"}, {\"name\": \"dpi\", \"description\": \"8000\"}], " +
+                         "\"description\": \"Gamer\", \"categoryId\": " + category.getId() + "}";
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/products")
+                                              .contentType(MediaType.APPLICATION_JSON)
+                                              .content(payload)
+                                              .with(jwt().jwt(builder -> builder.claim("email", seller.getUsername()))
+                                                         .authorities(new SimpleGrantedAuthority("SCOPE_product:write"))))
+               .andExpect(status().isCreated());
+
+        this.productId = productRepository.findAll().get(0).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        emailRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("must send the confirmation of a purchase from its copied values, outside any transaction")
+    void test1() throws Exception {
+        PostPaymentProcessedPurchase purchase = mock(PostPaymentProcessedPurchase.class);
+        when(purchase.isPaymentSuccessful()).thenReturn(true);
+        when(purchase.getQuantity()).thenReturn(2);
+        when(purchase.getProductId()).thenReturn(this.productId);
+        when(purchase.getProductName()).thenReturn("Mouse");
+        when(purchase.paymentConfirmedTime()).thenReturn(LocalDateTime.of(2022, 9, 1, 10, 0));
+        when(purchase.buyerEmail()).thenReturn("comprador@nossalojavirtual.com");
+        when(purchase.sellerEmail()).thenReturn("vendedor@nossalojavirtual.com");
+
+        Thread action = new Thread(() -> sendPurchaseEmailConfirmation.execute(purchase, UriComponentsBuilder.newInstance()));
+        action.start();
+        action.join();
+
+        assertTrue(emailDispatcher.awaitDelivery(Duration.ofSeconds(5)));
+        assertEquals(1, emailRepository.count());
+
+        Email email = emailRepository.findAll().iterator().next();
+        assertTrue(email.getBody().startsWith("Your 2 product(s): Mouse is being prepared!"));
+    }
+}
@@ -0,0 +1,198 @@
+package br.com.zup.edu.nossalojavirtual.shared.email;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class EmailDispatcherTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final EmailRepository emailRepository = mock(EmailRepository.class);
+
+    private final List<Integer> storedBatches = Collections.synchronizedList(new ArrayList<>());
+
+    private final StubEmailService emailService = new StubEmailService();
+
+    private EmailDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        emailService.release.countDown();
+        dispatcher.destroy();
+    }
+
+    @Test
+    @DisplayName("must send and store the queued emails in batches of at most the batch size")
+    void test1() throws Exception {
+        storeBatches();
+        dispatcher = dispatcher(1, 100, 3);
+
+        dispatcher.dispatch(emailService.blocking);
+        assertTrue(emailService.blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 6; i++) {
+            dispatcher.dispatch(email("comprador" + i + "@nossalojavirtual.com"));
+        }
+        emailService.release.countDown();
+
+        assertTrue(dispatcher.awaitDelivery(Duration.ofSeconds(5)));
+        assertEquals(List.of(1, 3, 3), storedBatches);
+        assertEquals(7, outcomes("success"));
+    }
+
+    @Test
+    @DisplayName("must deliver the email in the dispatching thread when the queue is full")
+    void test2() throws Exception {
+        storeBatches();
+        dispatcher = dispatcher(1, 1, 10);
+
+        dispatcher.dispatch(emailService.blocking);
+        assertTrue(emailService.blocked.await(5, TimeUnit.SECONDS));
+        dispatcher.dispatch(email("fila@nossalojavirtual.com"));
+
+        Email overflow = email("cheia@nossalojavirtual.com");
+        dispatcher.dispatch(overflow);
+
+        assertEquals(Thread.currentThread().getName(), emailService.sendingThreads.get(overflow.getTo()));
+        assertEquals(1, outcomes("success"));
+
+        emailService.release.countDown();
+        assertTrue(dispatcher.awaitDelivery(Duration.ofSeconds(5)));
+        assertEquals(3, outcomes("success"));
+    }
+
+    @Test
+    @DisplayName("must count an email that could not be sent as a failure and store the others")
+    void test3() throws Exception {
+        storeBatches();
+        emailService.release.countDown();
+        dispatcher = dispatcher(1, 100, 10);
+
+        dispatcher.dispatch(email(StubEmailService.FAILING));
+        dispatcher.dispatch(email("comprador@nossalojavirtual.com"));
+
+        assertTrue(dispatcher.awaitDelivery(Duration.ofSeconds(5)));
+        assertEquals(1, outcomes("failure"));
+        assertEquals(1, outcomes("success"));
+    }
+
+    @Test
+    @DisplayName("must count the sent emails that could not be stored as unsaved")
+    void test4() throws Exception {
+        doThrow(new IllegalStateException("database is down")).when(emailRepository).saveAll(anyList());
+        emailService.release.countDown();
+        dispatcher = dispatcher(1, 100, 10);
+
+        dispatcher.dispatch(email("comprador@nossalojavirtual.com"));
+        dispatcher.dispatch(email("vendedor@nossalojavirtual.com"));
+
+        assertTrue(dispatcher.awaitDelivery(Duration.ofSeconds(5)));
+        assertEquals(2, outcomes("unsaved"));
+        assertEquals(0, outcomes("success"));
+    }
+
+    @Test
+    @DisplayName("must deliver the queued emails when it is destroyed")
+    void test5() throws Exception {
+        storeBatches();
+        dispatcher = dispatcher(1, 100, 2);
+
+        dispatcher.dispatch(emailService.blocking);
+        assertTrue(emailService.blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 4; i++) {
+            dispatcher.dispatch(email("comprador" + i + "@nossalojavirtual.com"));
+        }
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            emailService.release.countDown();
+        });
+        releaser.start();
+
+        dispatcher.destroy();
+        releaser.join();
+
+        assertTrue(dispatcher.awaitDelivery(Duration.ZERO));
+        assertEquals(5, outcomes("success"));
+        assertEquals(5, storedBatches.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    private EmailDispatcher dispatcher(int parallelism, int queueCapacity, int batchSize) {
+        return new EmailDispatcher(emailService, emailRepository, meterRegistry, mock(PlatformTransactionManager.class),
+                parallelism, queueCapacity, batchSize);
+    }
+
+    private void storeBatches() {
+        doAnswer(invocation -> {
+            List<Email> batch = invocation.getArgument(0);
+            storedBatches.add(batch.size());
+            return batch;
+        }).when(emailRepository).saveAll(anyList());
+    }
+
+    private double outcomes(String outcome) {
+        return meterRegistry.counter("emails.dispatch", "outcome", outcome).count();
+    }
+
+    private static Email email(String to) {
+        return Email.to(to)
+                    .from("loja@nossalojavirtual.com")
+                    .subject("Compra confirmada")
+                    .body("Sua compra foi confirmada")
+                    .product(null)
+                    .build();
+    }
+
+    /**
+     * holds the worker on the blocking email until it is released, and fails the email to the failing address
+     */
+    private static class StubEmailService implements EmailService {
+
+        static final String FAILING = "falha@nossalojavirtual.com";
+
+        private final Email blocking = email("bloqueio@nossalojavirtual.com");
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final ConcurrentHashMap<String, String> sendingThreads = new ConcurrentHashMap<>();
+
+        @Override
+        public void send(Email email) {
+            sendingThreads.put(email.getTo(), Thread.currentThread().getName());
+
+            if (email == blocking) {
+                blocked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (FAILING.equals(email.getTo())) {
+                throw new IllegalStateException("mail server refused " + email.getTo());
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package br.com.zup.edu.nossalojavirtual.shared.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DiscardingAsyncAppenderTest {
+
+    private final LoggerContext loggerContext = new LoggerContext();
+
+    @Test
+    @DisplayName("must drop the events under WARN when the ring buffer is almost full and keep the others")
+    void test1() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BlockedAppender output = new BlockedAppender(release);
+
+        DiscardingAsyncAppender appender = new DiscardingAsyncAppender();
+        appender.setContext(loggerContext);
+        appender.setRingBufferSize(4);
+        appender.setDiscardingThreshold(3);
+        appender.addAppender(output);
+        appender.start();
+
+        appender.doAppend(event(Level.INFO, "first"));
+        appender.doAppend(event(Level.INFO, "second"));
+        appender.doAppend(event(Level.INFO, "third"));
+        appender.doAppend(event(Level.ERROR, "fourth"));
+
+        assertEquals(3, appender.queueSize());
+        assertEquals(1, appender.discardedEvents());
+
+        release.countDown();
+        appender.stop();
+
+        assertEquals(List.of("first", "second", "fourth"), output.messages());
+    }
+
+    private LoggingEvent event(Level level, String message) {
+        return new LoggingEvent(DiscardingAsyncAppenderTest.class.getName(),
+                loggerContext.getLogger(DiscardingAsyncAppenderTest.class), level, message, null, null);
+    }
+
+    private static class BlockedAppender extends AppenderBase<ILoggingEvent> {
+
+        private final List<ILoggingEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+
+        private BlockedAppender(CountDownLatch release) {
+            this.release = release;
+            start();
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        }
+
+        private List<String> messages() {
+            return events.stream().map(ILoggingEvent::getFormattedMessage).collect(toList());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package br.com.zup.edu.nossalojavirtual.shared.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the time a request spends logging the product details read,
+ * writing synchronously with caller data against handing the events to the {@link DiscardingAsyncAppender}.
+ *
+ * Run with <code>mvn test -Dbenchmark=true -Dtest=LoggingBenchmarkTest</code>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LoggingBenchmarkTest {
+
+    private static final org.slf4j.Logger LOG = LoggerFactory.getLogger(LoggingBenchmarkTest.class);
+
+    private static final int REQUESTS = 20_000;
+
+    @TempDir
+    Path logs;
+
+    @Test
+    @DisplayName("must log a request faster through the asynchronous appender than writing synchronously with caller data")
+    void test1() {
+        LoggerContext loggerContext = new LoggerContext();
+
+        PatternLayoutEncoder callerDataEncoder = new PatternLayoutEncoder();
+        callerDataEncoder.setContext(loggerContext);
+        callerDataEncoder.setPattern("%d [%t] %p %C{1.} %M %m%n");
+        callerDataEncoder.start();
+        Logger synchronous = logger(loggerContext, "synchronous", file(loggerContext, "synchronous.log", callerDataEncoder));
+
+        LogstashEncoder jsonEncoder = new LogstashEncoder();
+        jsonEncoder.setContext(loggerContext);
+        jsonEncoder.start();
+        DiscardingAsyncAppender async = new DiscardingAsyncAppender();
+        async.setContext(loggerContext);
+        async.addAppender(file(loggerContext, "async.log", jsonEncoder));
+        async.start();
+        Logger asynchronous = logger(loggerContext, "asynchronous", async);
+
+        log(synchronous, () -> true);
+        double synchronousLatency = log(synchronous, () -> true);
+        log(asynchronous, () -> async.queueSize() == 0);
+        double asynchronousLatency = log(asynchronous, () -> async.queueSize() == 0);
+
+        loggerContext.stop();
+
+        LOG.info("[BENCHMARK] [LOGGING] median of {} us per request writing synchronously, {} us through the ring buffer, {} events dropped",
+                String.format("%.2f", synchronousLatency), String.format("%.2f", asynchronousLatency), async.discardedEvents());
+
+        assertTrue(asynchronousLatency < synchronousLatency, "the asynchronous appender did not make logging faster");
+    }
+
+    /**
+     * @param idle true once the logged lines are written, the rest of a request gives the output that time
+     * @return the median time to log the three lines of a product details read in microseconds (us)
+     */
+    private double log(Logger logger, BooleanSupplier idle) {
+        double[] latencies = new double[REQUESTS];
+
+        for (int i = 0; i < REQUESTS; i++) {
+            UUID id = UUID.randomUUID();
+            long start = System.nanoTime();
+            logger.info("Get product {} details", id);
+            logger.info("Reading product {} details from the database", id);
+            logger.info("Search of product details {} successful", id);
+            latencies[i] = (System.nanoTime() - start) / 1_000d;
+
+            while (!idle.getAsBoolean()) {
+                Thread.onSpinWait();
+            }
+        }
+
+        Arrays.sort(latencies);
+        return latencies[latencies.length / 2];
+    }
+
+    private Appender<ILoggingEvent> file(LoggerContext loggerContext, String name, Encoder<ILoggingEvent> encoder) {
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(loggerContext);
+        appender.setFile(logs.resolve(name).toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    private Logger logger(LoggerContext loggerContext, String name, Appender<ILoggingEvent> appender) {
+        Logger logger = loggerContext.getLogger(name);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+}
@@ -0,0 +1,209 @@
+package br.com.zup.edu.nossalojavirtual.shared.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingJwtDecoderTest {
+
+    static final String ISSUER = "http://localhost:18080/realms/nosa-loja-virtual";
+
+    @TempDir
+    Path directory;
+
+    private Path jwkSetFile;
+
+    private RSAKey key;
+
+    private RefreshingJwkSource jwkSource;
+
+    private MeterRegistry meterRegistry;
+
+    private CachingJwtDecoder jwtDecoder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.key = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        this.jwkSetFile = directory.resolve("jwks.json");
+        writeJwkSet(key);
+
+        this.jwkSource = jwkSource(new FileSystemResource(jwkSetFile));
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.jwtDecoder = new CachingJwtDecoder(jwkSource, ISSUER, meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jwkSource.destroy();
+    }
+
+    @Test
+    @DisplayName("must validate a token only the first time it is decoded")
+    void test1() throws Exception {
+        String token = sign(key, Instant.now().plusSeconds(300));
+
+        Jwt jwt = jwtDecoder.decode(token);
+        assertEquals("comprador@nossalojavirtual.com", jwt.getClaimAsString("email"));
+        assertEquals(jwt, jwtDecoder.decode(token));
+
+        assertEquals(1, cacheGets("miss"));
+        assertEquals(1, cacheGets("hit"));
+    }
+
+    @Test
+    @DisplayName("must not decode an expired token, a token signed by an unknown key or issued by another issuer")
+    void test2() throws Exception {
+        String expired = sign(key, Instant.now().minusSeconds(300));
+        assertThrows(JwtException.class, () -> jwtDecoder.decode(expired));
+        assertThrows(JwtException.class, () -> jwtDecoder.decode(expired));
+
+        String otherIssuer = sign(key, "http://localhost:18080/realms/other", Instant.now().plusSeconds(300));
+        assertThrows(JwtException.class, () -> jwtDecoder.decode(otherIssuer));
+
+        RSAKey unknown = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        String forged = sign(unknown, Instant.now().plusSeconds(300));
+        assertThrows(JwtException.class, () -> jwtDecoder.decode(forged));
+
+        assertEquals(0, cacheGets("hit"));
+    }
+
+    @Test
+    @DisplayName("must validate the tokens of a rotated key after the keys are refreshed and keep them if they can not be read")
+    void test3() throws Exception {
+        RSAKey rotated = new RSAKeyGenerator(2048).keyID("key-2").generate();
+        String token = sign(rotated, Instant.now().plusSeconds(300));
+        assertThrows(JwtException.class, () -> jwtDecoder.decode(token));
+
+        writeJwkSet(key, rotated);
+        jwkSource.refresh();
+        assertEquals("comprador@nossalojavirtual.com", jwtDecoder.decode(token).getClaimAsString("email"));
+
+        Files.delete(jwkSetFile);
+        jwkSource.refresh();
+        String other = sign(key, Instant.now().plusSeconds(300));
+        assertEquals("comprador@nossalojavirtual.com", jwtDecoder.decode(other).getClaimAsString("email"));
+    }
+
+    @Test
+    @DisplayName("must load the keys kept in the fallback file when the location can not be read on startup")
+    void test4() throws Exception {
+        awaitKeys();
+        jwkSource.destroy();
+        Files.delete(jwkSetFile);
+
+        this.jwkSource = jwkSource(new FileSystemResource(jwkSetFile));
+        this.jwtDecoder = new CachingJwtDecoder(jwkSource, ISSUER, meterRegistry, 100, Duration.ofMinutes(5));
+
+        String token = sign(key, Instant.now().plusSeconds(300));
+        assertEquals("comprador@nossalojavirtual.com", jwtDecoder.decode(token).getClaimAsString("email"));
+    }
+
+    @Test
+    @DisplayName("must retry loading the keys until the location can be read when there are no keys")
+    void test5() throws Exception {
+        awaitKeys();
+        jwkSource.destroy();
+        Files.delete(jwkSetFile);
+        Files.delete(directory.resolve("fallback.json"));
+
+        this.jwkSource = jwkSource(new FileSystemResource(jwkSetFile));
+        assertFalse(jwkSource.hasKeys());
+
+        writeJwkSet(key);
+        awaitKeys();
+
+        assertTrue(jwkSource.hasKeys());
+    }
+
+    @Test
+    @DisplayName("must read the keys again once for a token signed by an unknown key")
+    void test6() throws Exception {
+        awaitKeys();
+
+        RSAKey rotated = new RSAKeyGenerator(2048).keyID("key-2").generate();
+        writeJwkSet(key, rotated);
+        String token = sign(rotated, Instant.now().plusSeconds(300));
+        assertEquals("comprador@nossalojavirtual.com", jwtDecoder.decode(token).getClaimAsString("email"));
+
+        RSAKey rotatedAgain = new RSAKeyGenerator(2048).keyID("key-3").generate();
+        writeJwkSet(key, rotated, rotatedAgain);
+        String tooSoon = sign(rotatedAgain, Instant.now().plusSeconds(300));
+        assertThrows(JwtException.class, () -> jwtDecoder.decode(tooSoon));
+    }
+
+    /**
+     * the keys are loaded in the background when the source is created
+     */
+    private void awaitKeys() throws InterruptedException {
+        Instant deadline = Instant.now().plusSeconds(5);
+        while (!jwkSource.hasKeys() && Instant.now().isBefore(deadline)) {
+            Thread.sleep(20);
+        }
+    }
+
+    private RefreshingJwkSource jwkSource(FileSystemResource location) {
+        return new RefreshingJwkSource(location, directory.resolve("fallback.json"), Duration.ofSeconds(1),
+                Duration.ofMillis(50), Duration.ofMillis(200), Duration.ofMinutes(1));
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                            .tag("cache", "validatedTokens")
+                            .tag("result", result)
+                            .functionCounter()
+                            .count();
+    }
+
+    private void writeJwkSet(RSAKey... keys) throws IOException {
+        Files.writeString(jwkSetFile, new JWKSet(List.of(keys)).toPublicJWKSet().toString(), UTF_8);
+    }
+
+    static String sign(RSAKey key, Instant expiresAt) throws JOSEException {
+        return sign(key, ISSUER, expiresAt);
+    }
+
+    static String sign(RSAKey key, String issuer, Instant expiresAt) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject("comprador")
+                .claim("email", "comprador@nossalojavirtual.com")
+                .claim("scope", "product:write")
+                .issueTime(new Date())
+                .expirationTime(Date.from(expiresAt))
+                .build();
+
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
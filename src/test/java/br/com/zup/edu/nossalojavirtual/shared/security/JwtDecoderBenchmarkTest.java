@@ -0,0 +1,81 @@
+package br.com.zup.edu.nossalojavirtual.shared.security;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static br.com.zup.edu.nossalojavirtual.shared.security.CachingJwtDecoderTest.ISSUER;
+import static br.com.zup.edu.nossalojavirtual.shared.security.CachingJwtDecoderTest.sign;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the time spent decoding the access token of a request, validating every token against caching the validated ones.
+ *
+ * Run with <code>mvn test -Dbenchmark=true -Dtest=JwtDecoderBenchmarkTest</code>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtDecoderBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JwtDecoderBenchmarkTest.class);
+
+    private static final int CLIENTS = 100;
+    private static final int REQUESTS_PER_CLIENT = 100;
+
+    @Test
+    @DisplayName("must decode the token of a request faster when the validated tokens are cached")
+    void test1() throws Exception {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        JWKSource<SecurityContext> jwkSource = new ImmutableJWKSet<>(new JWKSet(key.toPublicJWK()));
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            tokens.add(sign(key, Instant.now().plusSeconds(300)));
+        }
+
+        decode(CachingJwtDecoder.validating(jwkSource, ISSUER), tokens);
+        double validating = decode(CachingJwtDecoder.validating(jwkSource, ISSUER), tokens);
+
+        decode(new CachingJwtDecoder(jwkSource, ISSUER, new SimpleMeterRegistry(), CLIENTS, Duration.ofMinutes(5)), tokens);
+        double caching = decode(new CachingJwtDecoder(jwkSource, ISSUER, new SimpleMeterRegistry(), CLIENTS, Duration.ofMinutes(5)), tokens);
+
+        LOG.info("[BENCHMARK] [JWT] median of {} us validating every token, {} us caching the validated tokens",
+                String.format("%.2f", validating), String.format("%.2f", caching));
+
+        assertTrue(caching < validating, "caching the validated tokens did not make decoding faster");
+    }
+
+    /**
+     * @return the median time to decode a token in microseconds (us)
+     */
+    private double decode(JwtDecoder jwtDecoder, List<String> tokens) {
+        double[] latencies = new double[CLIENTS * REQUESTS_PER_CLIENT];
+
+        int request = 0;
+        for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+            for (String token : tokens) {
+                long start = System.nanoTime();
+                jwtDecoder.decode(token);
+                latencies[request++] = (System.nanoTime() - start) / 1_000d;
+            }
+        }
+
+        Arrays.sort(latencies);
+        return latencies[latencies.length / 2];
+    }
+}
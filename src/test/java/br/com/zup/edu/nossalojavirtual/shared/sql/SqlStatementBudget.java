@@ -0,0 +1,72 @@
+package br.com.zup.edu.nossalojavirtual.shared.sql;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+
+/**
+ * Bounds how many SQL statements a MockMvc request runs, so a new N+1 fails the test that covers the endpoint.
+ *
+ * <pre>
+ * mockMvc.perform(request.with(recordStatements()))
+ *        .andExpect(status().isOk())
+ *        .andExpect(statementsAtMost(5));
+ * </pre>
+ *
+ * Only the statements prepared by Hibernate in the request thread are counted,
+ * the work handed to other threads, such as the emails and the post purchase actions, is not.
+ */
+public final class SqlStatementBudget {
+
+    private SqlStatementBudget() { }
+
+    /**
+     * @return a post processor that starts recording the statements of the request
+     */
+    public static RequestPostProcessor recordStatements() {
+        return request -> {
+            SqlStatementRecorder.start();
+            return request;
+        };
+    }
+
+    /**
+     * @param budget the most statements the request may run
+     * @return a matcher that fails listing every statement, with its repetitions, when the request ran more than the budget
+     */
+    public static ResultMatcher statementsAtMost(int budget) {
+        return result -> {
+            List<String> statements = SqlStatementRecorder.stop();
+            if (statements.size() > budget) {
+                throw new AssertionError(report(result.getRequest().getMethod() + " " + result.getRequest().getRequestURI(),
+                        budget, statements));
+            }
+        };
+    }
+
+    private static String report(String request, int budget, List<String> statements) {
+        Map<String, Long> repetitions = statements.stream()
+                                                  .collect(groupingBy(identity(), LinkedHashMap::new, counting()));
+
+        StringBuilder report = new StringBuilder()
+                .append(request).append(" ran ").append(statements.size())
+                .append(" SQL statements, the budget is ").append(budget).append(':');
+
+        repetitions.forEach((sql, times) -> {
+            report.append(System.lineSeparator()).append("  ");
+            if (times > 1) {
+                report.append(times).append("x ");
+            }
+            report.append(sql.replaceAll("\\s+", " ").trim());
+        });
+
+        return report.toString();
+    }
+}
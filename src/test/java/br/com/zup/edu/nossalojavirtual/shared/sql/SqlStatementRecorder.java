@@ -0,0 +1,45 @@
+package br.com.zup.edu.nossalojavirtual.shared.sql;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the SQL of every statement Hibernate prepares in the recording thread.
+ *
+ * Registered as <code>hibernate.session_factory.statement_inspector</code> in the test profile,
+ * the recordings are read through {@link SqlStatementBudget}
+ */
+public class SqlStatementRecorder implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> RECORDING = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = RECORDING.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * starts a new recording in the current thread, the previous one is discarded
+     */
+    static void start() {
+        RECORDING.set(new ArrayList<>());
+    }
+
+    /**
+     * @return the statements recorded in the current thread since {@link #start()}, the recording is over
+     */
+    static List<String> stop() {
+        List<String> statements = RECORDING.get();
+        RECORDING.remove();
+        if (statements == null) {
+            throw new IllegalStateException("no statements are being recorded, add SqlStatementBudget.recordStatements() to the request");
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,162 @@
+package br.com.zup.edu.nossalojavirtual.shared.validators;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExistenceFilterTest {
+
+    private static final int KEYS = 10_000;
+
+    private final Set<String> registered = new HashSet<>();
+
+    private MeterRegistry meterRegistry;
+
+    private KnownNames knownNames;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < KEYS; i++) {
+            registered.add(UUID.randomUUID().toString());
+        }
+
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.knownNames = new KnownNames(new ArrayList<>(registered), meterRegistry);
+        knownNames.load();
+    }
+
+    @Test
+    @DisplayName("must contain every loaded and registered key")
+    void test1() {
+        registered.forEach(key -> assertTrue(knownNames.mightContain(key)));
+
+        knownNames.registered(new Named("Tecnologia"));
+        assertTrue(knownNames.mightContain("Tecnologia"));
+
+        knownNames.registered("not a named entity");
+        assertFalse(knownNames.mightContain("not a named entity"));
+    }
+
+    @Test
+    @DisplayName("must report about the expected share of unknown keys as maybe registered")
+    void test2() {
+        int falsePositives = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if (knownNames.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        double rate = (double) falsePositives / KEYS;
+        assertTrue(rate < 0.03, "false positive rate was " + rate);
+        assertTrue(knownNames.falsePositiveProbability() < 0.03);
+        assertEquals(KEYS, knownNames.approximateKeys(), KEYS * 0.05);
+    }
+
+    @Test
+    @DisplayName("must query only the keys that may be registered")
+    void test3() {
+        AtomicInteger queries = new AtomicInteger();
+        Function<String, Boolean> exists = knownNames.guard(key -> {
+            queries.incrementAndGet();
+            return registered.contains(key);
+        });
+
+        String key = registered.iterator().next();
+        assertTrue(exists.apply(key));
+        assertEquals(1, queries.get());
+
+        Function<String, Optional<String>> finder = knownNames.guardFinder(name -> {
+            queries.incrementAndGet();
+            return Optional.empty();
+        });
+
+        int unknown = 0;
+        for (int i = 0; i < 100; i++) {
+            if (!knownNames.mightContain("unknown-" + i)) {
+                unknown++;
+                assertTrue(finder.apply("unknown-" + i).isEmpty());
+            }
+        }
+        assertEquals(1, queries.get());
+
+        assertEquals(unknown, checks("negative"));
+        assertEquals(1, checks("positive"));
+        assertEquals(KEYS / 8d * 9.6, meterRegistry.get("existence.filter.size").gauge().value(), KEYS);
+    }
+
+    @Test
+    @DisplayName("must report a key registered behind the listener back only after the keys are loaded again")
+    void test4() {
+        String key = "registered-by-another-instance";
+        registered.add(key);
+        knownNames.names.add(key);
+
+        Function<String, Boolean> exists = knownNames.guard(registered::contains);
+        if (!knownNames.mightContain(key)) {
+            assertFalse(exists.apply(key));
+        }
+
+        knownNames.load();
+
+        assertTrue(knownNames.mightContain(key));
+        assertTrue(exists.apply(key));
+    }
+
+    private double checks(String result) {
+        return meterRegistry.get("existence.filter.checks")
+                            .tag("filter", "names")
+                            .tag("result", result)
+                            .counter()
+                            .count();
+    }
+
+    static class Named {
+
+        private final String name;
+
+        Named(String name) {
+            this.name = name;
+        }
+    }
+
+    static class KnownNames extends ExistenceFilter<Named, String> {
+
+        private final List<String> names;
+
+        KnownNames(List<String> names, MeterRegistry meterRegistry) {
+            super("names", Named.class, meterRegistry, KEYS, 0.01);
+            this.names = names;
+        }
+
+        @Override
+        protected String keyOf(Named entity) {
+            return entity.name;
+        }
+
+        @Override
+        protected Slice<String> registeredKeys(Pageable pageable) {
+            int from = (int) pageable.getOffset();
+            int to = Math.min(names.size(), from + pageable.getPageSize());
+            return new SliceImpl<>(names.subList(from, to), pageable, to < names.size());
+        }
+    }
+}
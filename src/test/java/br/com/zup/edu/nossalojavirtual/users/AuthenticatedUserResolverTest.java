@@ -0,0 +1,100 @@
+package br.com.zup.edu.nossalojavirtual.users;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AuthenticatedUserResolverTest {
+
+    @Autowired
+    private AuthenticatedUserResolver authenticatedUserResolver;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        userRepository.flush();
+        this.user = userRepository.save(new User("comprador@nossalojavirtual.com"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("must resolve the user of the token only once")
+    void test1() {
+        Jwt jwt = jwtOf("comprador@nossalojavirtual.com");
+        double hits = cacheHits();
+
+        UserReference reference = authenticatedUserResolver.resolve(jwt).orElseThrow();
+        assertEquals(user.getId(), reference.getId());
+        assertEquals("comprador@nossalojavirtual.com", reference.getEmail());
+
+        assertEquals(reference, authenticatedUserResolver.resolve(jwt).orElseThrow());
+        assertEquals(hits + 1, cacheHits());
+    }
+
+    @Test
+    @DisplayName("must resolve the user registered again after it was removed")
+    void test2() {
+        Jwt jwt = jwtOf("comprador@nossalojavirtual.com");
+        authenticatedUserResolver.resolve(jwt).orElseThrow();
+
+        userRepository.delete(user);
+        assertTrue(authenticatedUserResolver.resolve(jwt).isEmpty());
+
+        User registeredAgain = userRepository.save(new User("comprador@nossalojavirtual.com"));
+
+        UserReference reference = authenticatedUserResolver.resolve(jwt).orElseThrow();
+        assertNotEquals(user.getId(), reference.getId());
+        assertEquals(registeredAgain.getId(), reference.getId());
+    }
+
+    @Test
+    @DisplayName("must not resolve a token without email or of an unregistered user")
+    void test3() {
+        assertTrue(authenticatedUserResolver.resolve(jwtOf("vendedor@nossalojavirtual.com")).isEmpty());
+
+        Jwt withoutEmail = Jwt.withTokenValue("token")
+                              .header("alg", "none")
+                              .subject("comprador")
+                              .build();
+        assertTrue(authenticatedUserResolver.resolve(withoutEmail).isEmpty());
+    }
+
+    private double cacheHits() {
+        return meterRegistry.get("cache.gets")
+                            .tag("cache", "userReferences")
+                            .tag("result", "hit")
+                            .functionCounter()
+                            .count();
+    }
+
+    private Jwt jwtOf(String email) {
+        return Jwt.withTokenValue("token")
+                  .header("alg", "none")
+                  .claim("email", email)
+                  .build();
+    }
+}